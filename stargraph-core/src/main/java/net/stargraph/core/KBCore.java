@@ -1,5 +1,7 @@
 package net.stargraph.core;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigObject;
 import net.stargraph.StarGraphException;
@@ -13,14 +15,19 @@ import net.stargraph.core.search.EntitySearcher;
 import net.stargraph.core.search.SearchQueryGenerator;
 import net.stargraph.core.search.Searcher;
 import net.stargraph.model.KBId;
+import net.stargraph.model.LabeledEntity;
 import net.stargraph.query.Language;
 import net.stargraph.rank.ModifiableIndraParams;
+import net.stargraph.rank.WordEmbeddings;
+import net.stargraph.rank.impl.WordVectors;
 import org.apache.jena.rdf.model.Model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import java.io.File;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -47,6 +54,8 @@ public final class KBCore {
     private Map<String, Indexer> indexers;
     private Map<String, Searcher> searchers;
     private Map<String, SearchQueryGenerator> searchQueryGenerators;
+    private Cache<String, LabeledEntity> entityCache;
+    private WordEmbeddings localVectors;
     private boolean running;
 
     public KBCore(String kbName, Stargraph stargraph, boolean start) {
@@ -70,6 +79,7 @@ public final class KBCore {
         }
 
         this.namespace = Namespace.create(kbConfig);
+        this.entityCache = CacheBuilder.newBuilder().maximumSize(getInt("search.entity-cache.max-size")).build();
 
         if (start) {
             initialize();
@@ -114,6 +124,7 @@ public final class KBCore {
             }
         }
 
+        this.localVectors = openLocalVectors();
         this.ner = new NERSearcher(language, stargraph.getEntitySearcher(), nerKbName);
         this.kbLoader = new KBLoader(this);
         this.running = true;
@@ -198,14 +209,76 @@ public final class KBCore {
         return namespace;
     }
 
+    /**
+     * Entities resolved by id from the search engine, keyed by their indexed (shrunk) id.
+     */
+    public Cache<String, LabeledEntity> getEntityCache() {
+        return entityCache;
+    }
+
+    public void invalidateEntityCache() {
+        logger.info(marker, "Invalidating entity cache of '{}' ({} entries)", kbName, entityCache.size());
+        entityCache.invalidateAll();
+    }
+
     public GraphSearcher createGraphSearcher() {
         return new JenaGraphSearcher(kbName, stargraph);
     }
 
+    /**
+     * Maximum number of candidates fetched from the search engine before re-ranking.
+     * KB configuration overrides the global defaults. A negative value means unbounded.
+     */
+    public int getCandidateLimit(String searchType) {
+        return getInt(String.format("search.candidates.%s", Objects.requireNonNull(searchType)));
+    }
+
+    /**
+     * Maximum number of ids looked up in a single request to the search engine.
+     */
+    public int getEntityBatchSize() {
+        return getInt("search.entity-batch-size");
+    }
+
+    /**
+     * Number of models loaded at the same time when loading the whole KB. Non-positive means all of them.
+     */
+    public int getLoaderConcurrency() {
+        return getInt("loader.concurrent-models");
+    }
+
+    /**
+     * Models of this KB read by the processors of the given one, i.e the entities linked to passages.
+     * When loading the whole KB they are loaded first.
+     */
+    public List<String> getLoaderDependencies(String modelId) {
+        String path = String.format("model.%s.loader.depends-on", modelId);
+        return kbConfig.hasPath(path) ? kbConfig.getStringList(path) : Collections.emptyList();
+    }
+
     public void configureDistributionalParams(ModifiableIndraParams params) {
         String indraUrl = stargraph.getMainConfig().getString("distributional-service.rest-url");
         String indraCorpus = stargraph.getMainConfig().getString("distributional-service.corpus");
-        params.url(indraUrl).corpus(indraCorpus).language(language.code);
+        params.url(indraUrl).corpus(indraCorpus).language(language.code).cache(stargraph.getRelatednessCache());
+        params.localVectors(localVectors);
+    }
+
+    private WordEmbeddings openLocalVectors() {
+        final String path = "distributional-service.local-vectors";
+        Config config = kbConfig.hasPathOrNull(path) ? kbConfig : mainConfig;
+        if (!config.hasPathOrNull(path) || config.getIsNull(path)) {
+            return null;
+        }
+        logger.info(marker, "Distributional ranking served by local vectors '{}'", config.getString(path));
+        return WordVectors.open(new File(config.getString(path)));
+    }
+
+    private int getInt(String path) {
+        // KB configuration overrides the global defaults.
+        if (kbConfig.hasPath(path)) {
+            return kbConfig.getInt(path);
+        }
+        return mainConfig.getInt(path);
     }
 
     private void checkRunning() {
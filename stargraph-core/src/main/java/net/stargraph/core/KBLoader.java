@@ -28,6 +28,7 @@ package net.stargraph.core;
 
 import net.stargraph.StarGraphException;
 import net.stargraph.core.index.Indexer;
+import net.stargraph.core.index.ProgressWatcher;
 import net.stargraph.core.search.Searcher;
 import net.stargraph.model.KBId;
 import org.slf4j.Logger;
@@ -36,11 +37,15 @@ import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 /**
  * Encapsulates all management within a specific configured KB.
@@ -94,6 +99,8 @@ public final class KBLoader {
                 doLoadAll(core.getKBName());
             } catch (InterruptedException e) {
                 logger.error(marker, "Interrupted.", e);
+            } catch (Exception e) {
+                logger.error(marker, "Fail to load {}", core.getKBName(), e);
             }
             finally {
                 loading = false;
@@ -102,21 +109,42 @@ public final class KBLoader {
     }
 
     private void doLoadAll(String dbId) throws InterruptedException {
-        logger.warn(marker, "Loading ALL DATA of '{}'. This can take some time ;) ..", dbId);
-        List<KBId> successful = new ArrayList<>();
-        List<KBId> failing = new ArrayList<>();
-        core.getKBIds().forEach(kbId -> { // why not parallel?
-            try {
-                Indexer indexer = core.getIndexer(kbId.getModel());
-                indexer.load(true, -1);
-                indexer.awaitLoader();
-                successful.add(kbId);
-            } catch (Exception e) {
-                logger.error(marker, "Fail to load {}", kbId);
-                failing.add(kbId);
+        List<KBId> kbIds = core.getKBIds();
+        int concurrency = core.getLoaderConcurrency();
+        concurrency = Math.max(1, concurrency > 0 ? Math.min(concurrency, kbIds.size()) : kbIds.size());
+
+        logger.warn(marker, "Loading ALL DATA of '{}', {} models at a time. This can take some time ;) ..", dbId, concurrency);
+
+        Map<KBId, String> status = new ConcurrentHashMap<>();
+        kbIds.forEach(kbId -> status.put(kbId, "waiting"));
+
+        ExecutorService modelExecutor = Executors.newFixedThreadPool(concurrency);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> logStatus(kbIds, status), 30, 30, TimeUnit.SECONDS);
+
+        try {
+            // Each model starts once the models its processors read from are done, independent ones run in parallel.
+            // Nothing starts before all dependencies are known to be valid.
+            CompletableFuture<Boolean> start = new CompletableFuture<>();
+            Map<KBId, CompletableFuture<Boolean>> loads = new LinkedHashMap<>();
+            for (KBId kbId : kbIds) {
+                schedule(kbId, start, loads, new LinkedHashSet<>(), status, modelExecutor);
             }
-        });
+            start.complete(true);
+            for (CompletableFuture<Boolean> load : loads.values()) {
+                load.get();
+            }
+        } catch (ExecutionException e) {
+            logger.error(marker, "Fail to load {}", dbId, e.getCause()); // load never fails, see #load.
+        } finally {
+            modelExecutor.shutdownNow();
+            reporter.shutdownNow();
+        }
+
+        List<KBId> successful = kbIds.stream().filter(kbId -> "done".equals(status.get(kbId))).collect(Collectors.toList());
+        List<KBId> failing = kbIds.stream().filter(kbId -> !successful.contains(kbId)).collect(Collectors.toList());
 
+        logStatus(kbIds, status);
         if (failing.isEmpty()) {
             logger.info(marker, "Successful: {}", successful);
         }
@@ -125,6 +153,83 @@ public final class KBLoader {
         }
     }
 
+    /**
+     * Chains the load of the model after the loads of its dependencies, scheduling them first.
+     *
+     * @return completes with true if the model was loaded.
+     */
+    private CompletableFuture<Boolean> schedule(KBId kbId, CompletableFuture<Boolean> start,
+                                                Map<KBId, CompletableFuture<Boolean>> loads, Set<KBId> path,
+                                                Map<KBId, String> status, ExecutorService executor) {
+        CompletableFuture<Boolean> scheduled = loads.get(kbId);
+        if (scheduled != null) {
+            return scheduled;
+        }
+        if (!path.add(kbId)) {
+            throw new StarGraphException("Circular loader dependency: " + path);
+        }
+
+        List<KBId> dependencies = new ArrayList<>();
+        for (String modelId : core.getLoaderDependencies(kbId.getModel())) {
+            KBId dependency = KBId.of(kbId.getId(), modelId);
+            if (!status.containsKey(dependency)) {
+                throw new StarGraphException(String.format("%s depends on unknown model '%s'", kbId, modelId));
+            }
+            dependencies.add(dependency);
+        }
+
+        List<CompletableFuture<Boolean>> before = new ArrayList<>();
+        for (KBId dependency : dependencies) {
+            before.add(schedule(dependency, start, loads, path, status, executor));
+        }
+        path.remove(kbId);
+
+        CompletableFuture<Boolean> load = start.thenCombine(CompletableFuture.allOf(before.toArray(new CompletableFuture[0])),
+                (started, done) -> started)
+                .thenApplyAsync(v -> {
+                    for (int i = 0; i < dependencies.size(); i++) {
+                        if (!before.get(i).join()) {
+                            logger.warn(marker, "Skipping {}, {} was not loaded.", kbId, dependencies.get(i));
+                            status.put(kbId, "skipped: " + dependencies.get(i) + " not loaded");
+                            return false;
+                        }
+                    }
+                    return load(kbId, status);
+                }, executor);
+        loads.put(kbId, load);
+        return load;
+    }
+
+    private boolean load(KBId kbId, Map<KBId, String> status) {
+        try {
+            status.put(kbId, "loading");
+            Indexer indexer = core.getIndexer(kbId.getModel());
+            indexer.load(true, -1);
+            indexer.awaitLoader();
+            status.put(kbId, "done");
+            return true;
+        } catch (ExecutionException e) {
+            logger.error(marker, "Fail to load {}", kbId, e.getCause());
+            status.put(kbId, "failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.put(kbId, "interrupted");
+        } catch (Exception e) {
+            logger.error(marker, "Fail to load {}", kbId, e);
+            status.put(kbId, "failed: " + e);
+        }
+        return false;
+    }
+
+    private void logStatus(List<KBId> kbIds, Map<KBId, String> status) {
+        kbIds.forEach(kbId -> {
+            String state = status.get(kbId);
+            ProgressWatcher progress = core.getIndexer(kbId.getModel()).getLoaderProgress();
+            boolean started = progress != null && !"waiting".equals(state);
+            logger.info(marker, "{}: {}. {}", kbId, state, started ? progress.getReportMsg() : "");
+        });
+    }
+
     private boolean containsData(KBId kbId) {
         Searcher searcher = core.getSearcher(kbId.getModel());
         return searcher.countDocuments() > 0;
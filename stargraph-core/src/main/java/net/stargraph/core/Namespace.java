@@ -26,8 +26,6 @@ package net.stargraph.core;
  * ==========================License-End===============================
  */
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.typesafe.config.Config;
 import net.stargraph.StarGraphException;
 import net.stargraph.model.ClassEntity;
@@ -40,76 +38,89 @@ import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
-public final class Namespace extends TreeMap<String, String> {
+/**
+ * Prefix mappings of a KB. Read-only once built, the URI to prefix map is compiled into tries in both directions.
+ */
+public final class Namespace implements Serializable {
+    private static final long serialVersionUID = 1L;
     private static Logger logger = LoggerFactory.getLogger(Namespace.class);
     private static Marker marker = MarkerFactory.getMarker("core");
 
-    private Config kbConfig;
+    private transient Config kbConfig;
     private Set<String> mainNamespaces;
-    private Cache<String, String> shortenedURICache;
+    private TreeMap<String, String> mappings;
+    // Facts of a given entity may appear 1k times, no cache would keep up while bulk loading.
+    // Both directions are compiled once instead, making each lookup cheap. Rebuilt when deserialized.
+    private transient PrefixTrie shrinkTrie;
+    private transient PrefixTrie expandTrie;
 
     private Namespace(Config kbConfig) {
-        super((s1, s2) -> s1.length() == s2.length() ? s1.compareTo(s2) : s2.length() - s1.length()); // reverse order
         this.kbConfig = Objects.requireNonNull(kbConfig);
+        this.mappings = new TreeMap<>(new LongestFirst());
         this.readMainNamespaces();
         this.readMappings();
-        initCache();
+        this.compile();
     }
 
     private Namespace(String resource) {
-        super((s1, s2) -> s1.length() == s2.length() ? s1.compareTo(s2) : s2.length() - s1.length()); // reverse order
-        putAll(readNamespaceResource(resource));
-        initCache();
+        this.mainNamespaces = new LinkedHashSet<>();
+        this.mappings = new TreeMap<>(new LongestFirst());
+        this.mappings.putAll(readNamespaceResource(resource));
+        this.compile();
     }
 
-    private void initCache() {
-        // Be aware: Facts for a given Entity may appear 1k times (like a db entry with 1k columns!).
-        // Not following this assumption may result in a poorer performance, specially while bulk loading.
-        this.shortenedURICache = CacheBuilder.newBuilder().maximumSize(1000).build();
+    private void compile() {
+        this.shrinkTrie = new PrefixTrie(mappings.entrySet());
+        this.expandTrie = compileExpansions();
     }
 
-    public String shrinkURI(String uri) {
-        try {
-            return shortenedURICache.get(uri, () -> {
-                // This is the computation we want to avoid using the cache.
-                if (uri.startsWith("http://")) {
-                    for (Map.Entry<String, String> entry : this.entrySet()) {
-                        if (uri.startsWith(entry.getKey())) {
-                            return uri.replace(entry.getKey(), entry.getValue());
-                        }
-                    }
-                }
+    private PrefixTrie compileExpansions() {
+        // In the map order the longest URI wins if two URIs are mapped to the same prefix.
+        List<Map.Entry<String, String>> reversed = new ArrayList<>(mappings.size());
+        mappings.forEach((uri, prefix) -> reversed.add(new AbstractMap.SimpleImmutableEntry<>(prefix, uri)));
+        return new PrefixTrie(reversed);
+    }
 
-                return uri;
-            });
-        } catch (ExecutionException e) {
-            throw new StarGraphException(e);
-        }
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        compile();
     }
 
-    public String expandURI(String uri) {
-        for (Map.Entry<String, String> entry : this.entrySet()) {
-            if (uri.startsWith(entry.getValue())) {
-                return uri.replace(entry.getValue(), entry.getKey());
-            }
+    /**
+     * URI to prefix mappings, longest URI first. Mappings are compiled once, changing them is not supported.
+     */
+    public NavigableMap<String, String> getMappings() {
+        return Collections.unmodifiableNavigableMap(mappings);
+    }
+
+    public String shrinkURI(String uri) {
+        if (uri.startsWith("http://")) {
+            return shrinkTrie.replace(uri);
         }
         return uri;
     }
 
+    public String expandURI(String uri) {
+        return expandTrie.replace(uri);
+    }
+
     public static Namespace createDefault() {
         return new Namespace("default");
     }
 
     public boolean isFromMainNS(String uri) {
-        String[] mapped = shrinkURI(uri).split(":");
-        return mainNamespaces.contains(mapped[0]);
+        int match = uri.startsWith("http://") ? shrinkTrie.match(uri) : -1;
+        String mapped = match < 0 ? uri : shrinkTrie.getReplacement(match);
+        int colon = mapped.indexOf(':');
+        return mainNamespaces.contains(colon < 0 ? mapped : mapped.substring(0, colon));
     }
 
     @SuppressWarnings("unchecked")
@@ -160,7 +171,7 @@ public final class Namespace extends TreeMap<String, String> {
         final String key = "triple-store.namespace.mapping";
         if (kbConfig.hasPath(key) && !kbConfig.getIsNull(key)) {
             String resource = kbConfig.getString(key);
-            putAll(readNamespaceResource(resource));
+            mappings.putAll(readNamespaceResource(resource));
         } else {
             logger.warn(marker, "No default namespace mappings configured.");
         }
@@ -187,4 +198,16 @@ public final class Namespace extends TreeMap<String, String> {
 
         return all;
     }
+
+    /**
+     * Longest first, so the most specific URI is tried first.
+     */
+    private static final class LongestFirst implements Comparator<String>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.length() == s2.length() ? s1.compareTo(s2) : s2.length() - s1.length();
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package net.stargraph.core;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable character trie mapping prefixes to their replacements. Compiled into flat arrays once,
+ * lookups walk the arrays only, so they don't allocate and are safe to share between threads.
+ */
+final class PrefixTrie {
+    private final int[] edgeStart; // per node, edges are edgeStart[n] until edgeStart[n + 1], sorted by char.
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] terminals; // per node, index of the prefix ending there or -1.
+    private final String[] prefixes;
+    private final String[] replacements;
+
+    /**
+     * When two entries share a prefix the first one seen wins.
+     */
+    PrefixTrie(Iterable<Map.Entry<String, String>> mappings) {
+        List<String> prefixList = new ArrayList<>();
+        List<String> replacementList = new ArrayList<>();
+        List<BuildNode> nodes = new ArrayList<>();
+        BuildNode root = new BuildNode();
+
+        for (Map.Entry<String, String> mapping : mappings) {
+            BuildNode node = root;
+            for (int i = 0; i < mapping.getKey().length(); i++) {
+                node = node.children.computeIfAbsent(mapping.getKey().charAt(i), c -> new BuildNode());
+            }
+            if (node.terminal < 0) {
+                node.terminal = prefixList.size();
+                prefixList.add(mapping.getKey());
+                replacementList.add(mapping.getValue());
+            }
+        }
+
+        // Breadth first, so the children of each node get contiguous ids.
+        nodes.add(root);
+        int edgeCount = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            BuildNode node = nodes.get(i);
+            node.id = i;
+            nodes.addAll(node.children.values());
+            edgeCount += node.children.size();
+        }
+
+        this.edgeStart = new int[nodes.size() + 1];
+        this.edgeChars = new char[edgeCount];
+        this.edgeTargets = new int[edgeCount];
+        this.terminals = new int[nodes.size()];
+
+        int edge = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            BuildNode node = nodes.get(i);
+            edgeStart[i] = edge;
+            terminals[i] = node.terminal;
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                edgeChars[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue().id;
+                edge++;
+            }
+        }
+        edgeStart[nodes.size()] = edge;
+
+        this.prefixes = prefixList.toArray(new String[0]);
+        this.replacements = replacementList.toArray(new String[0]);
+    }
+
+    /**
+     * Index of the longest prefix of the given string, -1 if there is none.
+     */
+    int match(String str) {
+        int node = 0;
+        int best = terminals[0];
+        for (int i = 0; i < str.length(); i++) {
+            node = child(node, str.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (terminals[node] >= 0) {
+                best = terminals[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Replaces the longest matching prefix, returns the same instance when nothing matches.
+     */
+    String replace(String str) {
+        int match = match(str);
+        if (match < 0) {
+            return str;
+        }
+        return replacements[match].concat(str.substring(prefixes[match].length()));
+    }
+
+    String getReplacement(int match) {
+        return replacements[match];
+    }
+
+    private int child(int node, char c) {
+        int low = edgeStart[node];
+        int high = edgeStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static final class BuildNode {
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private int terminal = -1;
+        private int id;
+    }
+}
@@ -32,6 +32,7 @@ import net.stargraph.ModelUtils;
 import net.stargraph.StarGraphException;
 import net.stargraph.core.impl.hdt.HDTModelFactory;
 import net.stargraph.core.index.Indexer;
+import net.stargraph.core.index.LoaderBudget;
 import net.stargraph.core.processors.Processors;
 import net.stargraph.core.search.EntitySearcher;
 import net.stargraph.core.search.Searcher;
@@ -41,6 +42,8 @@ import net.stargraph.data.processor.Holder;
 import net.stargraph.data.processor.Processor;
 import net.stargraph.data.processor.ProcessorChain;
 import net.stargraph.model.KBId;
+import net.stargraph.rank.Rankers;
+import net.stargraph.rank.RelatednessCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -49,8 +52,12 @@ import org.slf4j.MarkerFactory;
 import java.io.File;
 import java.lang.management.ManagementFactory;
 import java.lang.reflect.Constructor;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The Stargraph database core implementation.
@@ -66,6 +73,9 @@ public final class Stargraph {
     private Map<String, KBCore> kbCoreMap;
     private Set<String> kbInitSet;
     private EntitySearcher entitySearcher;
+    private LoaderBudget loaderBudget;
+    private ExecutorService queryExecutor;
+    private RelatednessCache relatednessCache;
     private boolean initialized;
 
     /**
@@ -90,6 +100,7 @@ public final class Stargraph {
         this.kbCoreMap = new ConcurrentHashMap<>(8);
 
         this.entitySearcher = new EntitySearcher(this);
+        this.loaderBudget = createLoaderBudget();
 
         // Configurable defaults
         setDataRootDir(mainConfig.getString("data.root-dir")); // absolute path is expected
@@ -205,6 +216,13 @@ public final class Stargraph {
             throw new IllegalStateException("Core already initialized.");
         }
 
+        if (relatednessCache == null) {
+            // Created here as the data root directory may be changed after construction.
+            relatednessCache = createRelatednessCache();
+        }
+
+        // Released on terminate, along with the KBs using it.
+        this.queryExecutor = createQueryExecutor();
         this.initializeKBs();
 
         logger.info(marker, "Data root directory: '{}'", getDataRootDir());
@@ -220,6 +238,12 @@ public final class Stargraph {
         }
 
         kbCoreMap.values().forEach(KBCore::terminate);
+        queryExecutor.shutdownNow();
+        queryExecutor = null;
+        logger.info(marker, "{}", relatednessCache);
+        relatednessCache.close();
+        relatednessCache = null;
+        logger.info(marker, "{}", Rankers.getStats());
         initialized = false;
     }
 
@@ -298,6 +322,38 @@ public final class Stargraph {
         return mainConfig.getConfig(path);
     }
 
+    private LoaderBudget createLoaderBudget() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        int cpu = mainConfig.getInt("loader.budget.cpu");
+        int io = mainConfig.getInt("loader.budget.io");
+        return new LoaderBudget(cpu > 0 ? cpu : processors, io > 0 ? io : processors);
+    }
+
+    private RelatednessCache createRelatednessCache() {
+        int maxEntries = mainConfig.getInt("distributional-service.cache.max-entries");
+        if (mainConfig.getBoolean("distributional-service.cache.persistent")) {
+            long maxDiskBytes = mainConfig.getBytes("distributional-service.cache.max-disk-size");
+            try {
+                return new RelatednessCache(maxEntries, Paths.get(getDataRootDir(), "relatedness-cache").toFile(),
+                        maxDiskBytes);
+            } catch (StarGraphException e) {
+                logger.warn(marker, "Relatedness cache is memory only.", e);
+            }
+        }
+        return new RelatednessCache(maxEntries);
+    }
+
+    private ExecutorService createQueryExecutor() {
+        int threads = mainConfig.getInt("query.resolver.threads");
+        threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "query-resolver-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
     private IndicesFactory createDefaultIndicesFactory() {
         return getIndicesFactory(null);
     }
@@ -315,4 +371,22 @@ public final class Stargraph {
     public EntitySearcher getEntitySearcher() {
         return entitySearcher;
     }
+
+    public LoaderBudget getLoaderBudget() {
+        return loaderBudget;
+    }
+
+    /**
+     * Distributional scores shared by all KBs, available once initialized.
+     */
+    public RelatednessCache getRelatednessCache() {
+        return relatednessCache;
+    }
+
+    /**
+     * Shared by all query engines to resolve the bindings of a query concurrently, available once initialized.
+     */
+    public ExecutorService getQueryExecutor() {
+        return queryExecutor;
+    }
 }
@@ -27,7 +27,9 @@ package net.stargraph.core.graph;
  */
 
 import net.stargraph.model.LabeledEntity;
+import org.apache.jena.query.Query;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +37,25 @@ public interface GraphSearcher {
 
     Map<String, List<LabeledEntity>> select(String sparqlQuery);
 
+    /**
+     * Parses a SELECT to be streamed, failing with a StarGraphException on an invalid query or any other type.
+     */
+    Query parseSelect(String sparqlQuery);
+
+    /**
+     * Streams a SELECT through the handler as the graph produces the rows.
+     *
+     * @param query As parsed by {@link #parseSelect(String)}, it gets narrowed to the requested page.
+     * @param offset Rows to skip, on top of the OFFSET of the query itself.
+     * @param limit Maximum number of rows, negative means no limit besides the LIMIT of the query itself.
+     * @return Number of rows handled.
+     */
+    long select(Query query, long offset, long limit, SelectHandler handler) throws IOException;
+
+    default long select(String sparqlQuery, long offset, long limit, SelectHandler handler) throws IOException {
+        return select(parseSelect(sparqlQuery), offset, limit, handler);
+    }
+
     boolean ask(String sparqlQuery);
 
 }
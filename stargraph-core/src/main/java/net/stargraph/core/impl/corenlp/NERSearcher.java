@@ -193,7 +193,7 @@ public final class NERSearcher implements NER {
 
             logger.info(marker, "Trying to link {}", namedEntity);
 
-            final Scores scores = entitySearcher.instanceSearch(searchParams, ParamsBuilder.levenshtein());
+            final Scores scores = entitySearcher.instanceSearch(searchParams, ParamsBuilder.levenshtein().limit(1));
 
             // Currently, we only care about the highest scored entity.
             if (scores.size() > 0) {
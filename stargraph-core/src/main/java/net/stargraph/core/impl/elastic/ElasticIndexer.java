@@ -80,7 +80,7 @@ public final class ElasticIndexer extends BaseIndexer {
     }
 
     @Override
-    protected void afterLoad() throws InterruptedException {
+    protected void afterLoad(boolean completed) throws InterruptedException {
         if (bulkProcessor != null) {
             logger.info(marker, "Waiting for transport to serialize all remaining documents.");
 
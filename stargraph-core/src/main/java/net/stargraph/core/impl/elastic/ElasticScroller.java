@@ -27,10 +27,13 @@ package net.stargraph.core.impl.elastic;
  */
 
 import net.stargraph.core.search.SearchQueryHolder;
+import net.stargraph.core.search.SearchResult;
 import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
 import org.elasticsearch.action.search.ClearScrollResponse;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.document.DocumentField;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
@@ -39,6 +42,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
@@ -61,6 +65,10 @@ public abstract class ElasticScroller implements Iterable<Score> {
     private TimeValue scrollTime;
     private int maxScrollSize;
     private String[] fields;
+    private long totalHits;
+    private long backendTime;
+    private long deserializationTime;
+    private long bytesTransferred;
 
     public ElasticScroller(ElasticClient client, SearchQueryHolder<QueryBuilder> holder) {
         this.elasticClient = Objects.requireNonNull(client);
@@ -77,18 +85,49 @@ public abstract class ElasticScroller implements Iterable<Score> {
     public Iterator<Score> iterator() {
         logger.trace(marker, "Creating new scroller for {} with query: {}", elasticClient, holder.getQuery());
         consumedEntries = 0;
+        totalHits = 0;
+        backendTime = 0;
+        deserializationTime = 0;
+        bytesTransferred = 0;
         innerIterator = new InnerIterator();
         return innerIterator;
     }
 
-    public Scores getScores() {
+    /**
+     * Materializes all hits in a single pass, scrolling only once through the back-end.
+     */
+    public SearchResult getResult() {
         Scores scores = new Scores();
         this.forEach(scores::add);
-        return scores;
+        return new SearchResult(scores, totalHits, true, backendTime, deserializationTime, bytesTransferred);
     }
 
     protected abstract Score build(SearchHit hit);
 
+    /**
+     * Size of what the hit brought back: the source when it came along and the requested stored fields.
+     */
+    private static long fetchedBytes(SearchHit hit) {
+        long bytes = 0;
+        if (hit.hasSource()) {
+            bytes += hit.getSourceRef().length();
+        }
+        for (DocumentField field : hit.getFields().values()) {
+            for (Object value : field.getValues()) {
+                if (value instanceof BytesReference) {
+                    bytes += ((BytesReference) value).length();
+                } else if (value != null) {
+                    bytes += value.toString().getBytes(StandardCharsets.UTF_8).length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private boolean isBounded() {
+        return maxEntries >= 0 && maxEntries <= maxScrollSize;
+    }
+
     private class InnerIterator implements Iterator<Score> {
         SearchResponse response;
         Iterator<SearchHit> innerIt;
@@ -100,14 +139,25 @@ public abstract class ElasticScroller implements Iterable<Score> {
 
             try {
                 if (innerIt == null) {
-                    response = elasticClient.prepareSearch()
-                            .setScroll(scrollTime)
-                            .setQuery(holder.getQuery())
-                            .storedFields(fields)
-                            .setSize(maxScrollSize).get();
+                    long start = System.nanoTime();
+                    if (isBounded()) {
+                        // The whole top-K fits in one page, no need to open a scroll context.
+                        response = elasticClient.prepareSearch()
+                                .setQuery(holder.getQuery())
+                                .storedFields(fields)
+                                .setSize(maxEntries).get();
+                    } else {
+                        response = elasticClient.prepareSearch()
+                                .setScroll(scrollTime)
+                                .setQuery(holder.getQuery())
+                                .storedFields(fields)
+                                .setSize(maxScrollSize).get();
+                    }
 
+                    backendTime += System.nanoTime() - start;
                     ESUtils.check(response);
 
+                    totalHits = response.getHits().getTotalHits();
                     innerIt = response.getHits().iterator();
                     hasNext = innerIt.hasNext();
 
@@ -118,9 +168,11 @@ public abstract class ElasticScroller implements Iterable<Score> {
                 } else {
                     hasNext = innerIt.hasNext();
 
-                    if (!hasNext) {
+                    if (!hasNext && scrollId != null) {
                         logger.trace(marker, "Preparing new batch..");
+                        long start = System.nanoTime();
                         response = elasticClient.prepareSearchScroll(scrollId).setScroll(scrollTime).get();
+                        backendTime += System.nanoTime() - start;
                         scrollId = response.getScrollId();
                         innerIt = response.getHits().iterator();
                         hasNext = innerIt.hasNext();
@@ -146,10 +198,14 @@ public abstract class ElasticScroller implements Iterable<Score> {
         @Override
         public Score next() {
             try {
-                Score score = build(innerIt.next());
+                SearchHit hit = innerIt.next();
+                long start = System.nanoTime();
+                Score score = build(hit);
+                deserializationTime += System.nanoTime() - start;
                 if (score == null) {
                     throw new IllegalStateException("Can't return a NULL entry");
                 }
+                bytesTransferred += fetchedBytes(hit);
                 consumedEntries++;
                 return score;
             } catch (Exception e) {
@@ -30,11 +30,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.search.BaseSearcher;
 import net.stargraph.core.search.SearchQueryHolder;
+import net.stargraph.core.search.SearchResult;
 import net.stargraph.core.serializer.ObjectSerializer;
 import net.stargraph.model.BuiltInModel;
 import net.stargraph.model.KBId;
 import net.stargraph.rank.Score;
-import net.stargraph.rank.Scores;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsResponse;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -74,8 +74,9 @@ public final class ElasticSearcher extends BaseSearcher {
     }
 
     @Override
-    public Scores search(SearchQueryHolder holder) {
-        ElasticScroller scroller = null;
+    public SearchResult search(SearchQueryHolder holder) {
+        ElasticScroller scroller;
+        SearchResult result = null;
         long start = System.nanoTime();
 
         try {
@@ -95,12 +96,12 @@ public final class ElasticSearcher extends BaseSearcher {
                 }
             };
 
-            return scroller.getScores();
+            result = scroller.getResult();
+            return result;
         }
         finally {
             double elapsedInMillis = (System.nanoTime() - start) / 1000_000;
-            logger.debug(marker, "Took {}ms, {}, fetched {} entries.", elapsedInMillis,
-                    holder.getQuery(), scroller != null ? scroller.getScores().size() : 0);
+            logger.debug(marker, "Took {}ms, {}, {}", elapsedInMillis, holder.getQuery(), result);
         }
     }
 }
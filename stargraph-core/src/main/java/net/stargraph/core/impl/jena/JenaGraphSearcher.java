@@ -27,16 +27,22 @@ package net.stargraph.core.impl.jena;
  */
 
 import net.stargraph.ModelUtils;
+import net.stargraph.StarGraphException;
 import net.stargraph.core.KBCore;
 import net.stargraph.core.Namespace;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.graph.GraphSearcher;
+import net.stargraph.core.graph.SelectHandler;
 import net.stargraph.core.search.EntitySearcher;
 import net.stargraph.model.LabeledEntity;
 import net.stargraph.model.ValueEntity;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.impl.LiteralLabel;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryException;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.sparql.core.Var;
@@ -46,9 +52,13 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
 
 public final class JenaGraphSearcher implements GraphSearcher {
+    private static final int STREAM_BATCH_ROWS = 100;
+
     private Logger logger = LoggerFactory.getLogger(getClass());
     private Marker marker = MarkerFactory.getMarker("jena");
     private Namespace ns;
@@ -68,6 +78,49 @@ public final class JenaGraphSearcher implements GraphSearcher {
         return doSparqlQuery(sparqlQuery);
     }
 
+    @Override
+    public long select(Query query, long offset, long limit, SelectHandler handler) throws IOException {
+        String sparqlQuery = query.toString();
+        page(query, offset, limit);
+        logger.debug(marker, "Streaming: {}", query);
+
+        long startTime = System.currentTimeMillis();
+        long rowCount = 0;
+
+        try (QueryExecution qexec = QueryExecutionFactory.create(query, graphModel)) {
+            ResultSet results = qexec.execSelect();
+            handler.start(results.getResultVars());
+
+            List<Binding> batch = new ArrayList<>(STREAM_BATCH_ROWS);
+            try {
+                while (results.hasNext()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Interrupted while streaming.");
+                    }
+
+                    batch.add(results.nextBinding());
+                    if (batch.size() == STREAM_BATCH_ROWS || !results.hasNext()) {
+                        handler.rows(toRows(batch));
+                        rowCount += batch.size();
+                        batch.clear();
+                    }
+                }
+            } catch (IOException e) {
+                // Most likely the client went away, no point on keep evaluating the query.
+                qexec.abort();
+                logger.warn(marker, "Streaming aborted after {} rows: {}", rowCount, e.getMessage());
+                throw e;
+            }
+
+            handler.end(rowCount);
+        }
+
+        logger.info(marker, "SPARQL {} streamed {} rows in {}s", sparqlQuery, rowCount,
+                (System.currentTimeMillis() - startTime) / 1000.0);
+
+        return rowCount;
+    }
+
     @Override
     public boolean ask(String sparqlQuery) {
         return false;
@@ -83,21 +136,27 @@ public final class JenaGraphSearcher implements GraphSearcher {
         try (QueryExecution qexec = QueryExecutionFactory.create(sparqlQuery, graphModel)) {
             ResultSet results = qexec.execSelect();
 
+            // First pass collects the rows so the distinct entities can be resolved at once instead of one lookup per cell.
+            List<Binding> bindings = new ArrayList<>();
             while (results.hasNext()) {
-                Binding jBinding = results.nextBinding();
+                bindings.add(results.nextBinding());
+            }
+
+            Map<String, LabeledEntity> entities = resolveEntities(bindings);
+
+            for (Binding jBinding : bindings) {
                 Iterator<Var> vars = jBinding.vars();
                 while (vars.hasNext()) {
                     Var jVar = vars.next();
+                    Node node = jBinding.get(jVar);
 
-                    if (!jBinding.get(jVar).isLiteral()) {
-                        String id = jBinding.get(jVar).getURI();
-                        List<LabeledEntity> entities = result.computeIfAbsent(jVar.getVarName(), (v) -> new ArrayList<>());
-                        LabeledEntity labeledEntity = ns.isFromMainNS(id) ? entitySearcher.getEntity(dbId, id) : ModelUtils.createInstance(id);
-                        entities.add(labeledEntity);
-                    } else {
-                        LiteralLabel lit = jBinding.get(jVar).getLiteral();
-                        ValueEntity valueEntity = new ValueEntity(lit.getLexicalForm(), lit.getDatatype().getURI(), lit.language());
-                        result.computeIfAbsent(jVar.getVarName(), (v) -> new ArrayList<>()).add(valueEntity);
+                    if (node.isLiteral()) {
+                        result.computeIfAbsent(jVar.getVarName(), (v) -> new ArrayList<>()).add(toValue(node));
+                    } else if (node.isURI()) {
+                        String id = node.getURI();
+                        List<LabeledEntity> varEntities = result.computeIfAbsent(jVar.getVarName(), (v) -> new ArrayList<>());
+                        LabeledEntity labeledEntity = ns.isFromMainNS(id) ? entities.get(id) : ModelUtils.createInstance(id);
+                        varEntities.add(labeledEntity);
                     }
                 }
             }
@@ -114,4 +173,87 @@ public final class JenaGraphSearcher implements GraphSearcher {
 
         return result;
     }
+
+    private List<Map<String, LabeledEntity>> toRows(List<Binding> bindings) {
+        Map<String, LabeledEntity> entities = resolveEntities(bindings);
+        List<Map<String, LabeledEntity>> rows = new ArrayList<>(bindings.size());
+
+        for (Binding jBinding : bindings) {
+            Map<String, LabeledEntity> row = new LinkedHashMap<>();
+            Iterator<Var> vars = jBinding.vars();
+            while (vars.hasNext()) {
+                Var jVar = vars.next();
+                Node node = jBinding.get(jVar);
+
+                if (node.isLiteral()) {
+                    row.put(jVar.getVarName(), toValue(node));
+                } else if (node.isURI()) {
+                    // Entities missing from the index still get a label extracted from its URI.
+                    LabeledEntity labeledEntity = entities.get(node.getURI());
+                    row.put(jVar.getVarName(), labeledEntity != null ? labeledEntity : ModelUtils.createInstance(node.getURI()));
+                }
+            }
+            rows.add(row);
+        }
+
+        return rows;
+    }
+
+    private Map<String, LabeledEntity> resolveEntities(List<Binding> bindings) {
+        Set<String> entityIds = new LinkedHashSet<>();
+        for (Binding jBinding : bindings) {
+            Iterator<Var> vars = jBinding.vars();
+            while (vars.hasNext()) {
+                Node node = jBinding.get(vars.next());
+                if (node.isURI() && ns.isFromMainNS(node.getURI())) {
+                    entityIds.add(node.getURI());
+                }
+            }
+        }
+
+        return entityIds.isEmpty() ? Collections.emptyMap() : entitySearcher.getEntitiesById(dbId, entityIds);
+    }
+
+    private static ValueEntity toValue(Node node) {
+        LiteralLabel lit = node.getLiteral();
+        return new ValueEntity(lit.getLexicalForm(), lit.getDatatype().getURI(), lit.language());
+    }
+
+    @Override
+    public Query parseSelect(String sparqlQuery) {
+        Query query;
+        try {
+            query = QueryFactory.create(sparqlQuery);
+        } catch (QueryException e) {
+            throw new StarGraphException("Invalid SPARQL query: " + e.getMessage(), e);
+        }
+
+        if (!query.isSelectType()) {
+            throw new StarGraphException("Only SELECT queries can be streamed.");
+        }
+
+        return query;
+    }
+
+    /**
+     * Narrows the query to the requested page. The page is relative to the LIMIT/OFFSET already in the query.
+     */
+    private static void page(Query query, long offset, long limit) {
+        long queryLimit = query.hasLimit() ? query.getLimit() : -1;
+
+        if (offset > 0) {
+            query.setOffset((query.hasOffset() ? query.getOffset() : 0) + offset);
+            if (queryLimit >= 0) {
+                queryLimit = Math.max(0, queryLimit - offset);
+            }
+        }
+
+        if (limit >= 0) {
+            queryLimit = queryLimit >= 0 ? Math.min(queryLimit, limit) : limit;
+        }
+
+        if (queryLimit >= 0) {
+            query.setLimit(queryLimit);
+        }
+    }
 }
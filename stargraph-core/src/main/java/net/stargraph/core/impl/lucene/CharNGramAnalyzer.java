@@ -0,0 +1,67 @@
+package net.stargraph.core.impl.lucene;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenFilter;
+import org.apache.lucene.analysis.pattern.PatternReplaceFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits each word, padded with GRAM_SIZE - 1 marks on both sides, in its character trigrams at the word's position.
+ * A word of L chars has L + GRAM_SIZE - 1 of them, even the shortest ones, and a single edit changes at most
+ * MAX_CHANGED_PER_EDIT. The rest is shared with the misspelled form (q-gram lemma).
+ */
+final class CharNGramAnalyzer extends Analyzer {
+    static final int GRAM_SIZE = 3;
+    static final int MAX_CHANGED_PER_EDIT = GRAM_SIZE;
+    // Dropped by the tokenizer, hence never part of a word.
+    private static final String PAD = "$$";
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer source = new StandardTokenizer();
+        TokenStream stream = new LowerCaseFilter(source);
+        stream = new PatternReplaceFilter(stream, Pattern.compile(".+"),
+                Matcher.quoteReplacement(PAD) + "$0" + Matcher.quoteReplacement(PAD), false);
+        stream = new NGramTokenFilter(stream, GRAM_SIZE, GRAM_SIZE, false);
+        return new TokenStreamComponents(source, stream);
+    }
+
+    /**
+     * Length of a word split in the given number of grams.
+     */
+    static int wordLength(int gramCount) {
+        return gramCount - GRAM_SIZE + 1;
+    }
+}
@@ -26,52 +26,230 @@ package net.stargraph.core.impl.lucene;
  * ==========================License-End===============================
  */
 
+import com.typesafe.config.Config;
 import net.stargraph.StarGraphException;
 import net.stargraph.core.IndicesFactory;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.index.BaseIndexer;
 import net.stargraph.core.search.BaseSearcher;
 import net.stargraph.core.search.SearchQueryGenerator;
+import net.stargraph.model.BuiltInModel;
 import net.stargraph.model.KBId;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public final class LuceneFactory implements IndicesFactory {
-    private Map<KBId, Directory> luceneDirs = new ConcurrentHashMap<>();
+    static final String INDEX_NAME = "idx";
+    private static final String CURRENT_INDEX_FILE = "current-index";
+    // Index name, then the shard suffix if any.
+    private static final Pattern INDEX_DIR_PATTERN = Pattern.compile("(" + INDEX_NAME + "(?:\\.\\d+)?)(?:-\\d+)?");
+
+    private static Logger logger = LoggerFactory.getLogger(LuceneFactory.class);
+    private static Marker marker = MarkerFactory.getMarker("lucene");
+
+    // Shared by the started searchers of this factory, i.e all models of a Stargraph instance unless overridden.
+    private ExecutorService searchExecutor;
+    private int searchExecutorUsers;
+
+    private Map<KBId, Directory[]> luceneDirs = new ConcurrentHashMap<>();
+    private Map<KBId, LuceneIndexer> luceneIndexers = new ConcurrentHashMap<>();
+    private Map<KBId, LuceneSuggester> luceneSuggesters = new ConcurrentHashMap<>();
 
     @Override
     public BaseIndexer createIndexer(KBId kbId, Stargraph stargraph) {
-        return new LuceneIndexer(kbId, stargraph, getLuceneDir(stargraph, kbId));
+        LuceneIndexer indexer = new LuceneIndexer(kbId, stargraph, getLuceneDirs(stargraph, kbId),
+                getSuggester(stargraph, kbId));
+        luceneIndexers.put(kbId, indexer);
+        return indexer;
     }
 
     @Override
     public BaseSearcher createSearcher(KBId kbId, Stargraph stargraph) {
-        return new LuceneSearcher(kbId, stargraph, getLuceneDir(stargraph, kbId));
+        // Only one writer per directory, the searcher reads through the indexer's ones when there is an indexer.
+        return new LuceneSearcher(kbId, stargraph, getLuceneDirs(stargraph, kbId), luceneIndexers.get(kbId),
+                getSuggester(stargraph, kbId), this);
     }
 
     @Override
     public SearchQueryGenerator createSearchQueryGenerator(KBId kbId, Stargraph stargraph) {
-        return new LuceneSearchQueryGenerator();
+        long cacheBytes = getLuceneConfig(stargraph, kbId).getLong("query-cache.max-mb") * 1024 * 1024;
+        return new LuceneSearchQueryGenerator(cacheBytes, isNGramCandidates(stargraph, kbId));
     }
 
 
-    private Directory getLuceneDir(Stargraph stargraph, KBId kbId) {
-        return luceneDirs.computeIfAbsent(kbId,
-                (id) -> {
+    /**
+     * The global lucene settings overridden by those of the model.
+     */
+    static Config getLuceneConfig(Stargraph stargraph, KBId kbId) {
+        Config mainConfig = stargraph.getMainConfig().getConfig("lucene");
+        Config modelConfig = stargraph.getModelConfig(kbId);
+        return modelConfig.hasPath("lucene") ? modelConfig.getConfig("lucene").withFallback(mainConfig) : mainConfig;
+    }
+
+    /**
+     * Whether entity candidates are looked up by their character n-grams instead of fuzzy terms.
+     */
+    static boolean isNGramCandidates(Stargraph stargraph, KBId kbId) {
+        String candidates = getLuceneConfig(stargraph, kbId).getString("candidates");
+        switch (candidates) {
+            case "fuzzy":
+                return false;
+            case "ngram":
+                return true;
+            default:
+                throw new StarGraphException("Unknown lucene candidates '" + candidates + "' for " + kbId);
+        }
+    }
+
+    private Directory[] getLuceneDirs(Stargraph stargraph, KBId kbId) {
+        return luceneDirs.computeIfAbsent(kbId, (id) -> {
+            try {
+                return openDirectories(stargraph, id, getIndexName(stargraph, id));
+            } catch (IOException e) {
+                throw new StarGraphException(e);
+            }
+        });
+    }
+
+    /**
+     * One directory per shard of the named index. A single shard keeps the unsharded layout.
+     */
+    static Directory[] openDirectories(Stargraph stargraph, KBId kbId, String indexName) throws IOException {
+        int shards = getLuceneConfig(stargraph, kbId).getInt("shards");
+        if (shards < 1) {
+            throw new StarGraphException("At least one lucene shard is needed for " + kbId);
+        }
+        Directory[] dirs = new Directory[shards];
+        for (int i = 0; i < shards; i++) {
+            String dirName = shards == 1 ? indexName : indexName + "-" + i;
+            dirs[i] = new MMapDirectory(getModelPath(stargraph, kbId).resolve(dirName));
+        }
+        return dirs;
+    }
+
+    /**
+     * The live index of the model, either the original one or the last swapped in by a shadow reload.
+     */
+    static String getIndexName(Stargraph stargraph, KBId kbId) throws IOException {
+        Path current = getModelPath(stargraph, kbId).resolve(CURRENT_INDEX_FILE);
+        if (Files.exists(current)) {
+            return new String(Files.readAllBytes(current), StandardCharsets.UTF_8).trim();
+        }
+        return INDEX_NAME;
+    }
+
+    /**
+     * Replaces the pointer to the live index at once, a crash leaves either the old or the new one.
+     */
+    static void setIndexName(Stargraph stargraph, KBId kbId, String indexName) throws IOException {
+        Path current = getModelPath(stargraph, kbId).resolve(CURRENT_INDEX_FILE);
+        Path tmp = current.resolveSibling(CURRENT_INDEX_FILE + ".tmp");
+        Files.write(tmp, indexName.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, current, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * A name for a shadow index, unused so far.
+     */
+    static String newIndexName() {
+        return INDEX_NAME + "." + System.currentTimeMillis();
+    }
+
+    /**
+     * Removes the directories of every index but the named one, i.e retired or failed shadow ones.
+     */
+    static void deleteOtherIndices(Stargraph stargraph, KBId kbId, String keptName) {
+        Path modelPath = getModelPath(stargraph, kbId);
+        if (!Files.isDirectory(modelPath)) {
+            return;
+        }
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(modelPath, Files::isDirectory)) {
+            for (Path path : paths) {
+                Matcher matcher = INDEX_DIR_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches() && !matcher.group(1).equals(keptName)) {
                     try {
-                        String rootPath = stargraph.getDataRootDir();
-                        Path idxPath = Paths.get(rootPath, id.getId(), id.getModel(), "idx");
-                        return new MMapDirectory(idxPath);
+                        IOUtils.rm(path);
+                        logger.info(marker, "Deleted {}", path);
                     } catch (IOException e) {
-                        throw new StarGraphException(e);
+                        logger.warn(marker, "Fail to delete {}, still in use?", path, e);
                     }
-                });
+                }
+            }
+        } catch (IOException e) {
+            logger.warn(marker, "Fail to list {}", modelPath, e);
+        }
+    }
+
+    private static Path getModelPath(Stargraph stargraph, KBId kbId) {
+        return Paths.get(stargraph.getDataRootDir(), kbId.getId(), kbId.getModel());
+    }
+
+    /**
+     * Created by the first searcher to start, sized by its Stargraph instance. Null when queries are searched on the
+     * calling thread only. Each call is paired with {@link #releaseSearchExecutor()}.
+     */
+    synchronized ExecutorService acquireSearchExecutor(Stargraph stargraph) {
+        searchExecutorUsers++;
+        if (searchExecutor == null) {
+            int threads = stargraph.getMainConfig().getInt("lucene.search-threads");
+            if (threads <= 0) {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            if (threads == 1) {
+                return null;
+            }
+            AtomicInteger count = new AtomicInteger();
+            searchExecutor = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "lucene-search-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return searchExecutor;
+    }
+
+    /**
+     * Shuts the pool down once the last searcher using it has stopped.
+     */
+    synchronized void releaseSearchExecutor() {
+        if (--searchExecutorUsers == 0 && searchExecutor != null) {
+            searchExecutor.shutdown();
+            searchExecutor = null;
+        }
+    }
+
+    /**
+     * Only entity labels are suggested, null for the other models or when disabled.
+     */
+    private LuceneSuggester getSuggester(Stargraph stargraph, KBId kbId) {
+        if (!BuiltInModel.ENTITY.modelId.equals(kbId.getModel())
+                || !getLuceneConfig(stargraph, kbId).getBoolean("suggest.enabled")) {
+            return null;
+        }
+        return luceneSuggesters.computeIfAbsent(kbId, (id) -> {
+            Path path = getModelPath(stargraph, id).resolve("suggest.fst");
+            return new LuceneSuggester(id, stargraph, path);
+        });
     }
 
     //TODO: Put finalization code for each Lucene Directory. Suggestion: terminate method called by Stargraph class?
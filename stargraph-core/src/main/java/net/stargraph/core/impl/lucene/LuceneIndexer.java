@@ -26,38 +26,101 @@ package net.stargraph.core.impl.lucene;
  * ==========================License-End===============================
  */
 
+import com.typesafe.config.Config;
 import net.stargraph.StarGraphException;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.index.BaseIndexer;
+import net.stargraph.model.Fact;
 import net.stargraph.model.InstanceEntity;
 import net.stargraph.model.KBId;
+import net.stargraph.model.Passage;
+import net.stargraph.model.PropertyEntity;
+import net.stargraph.model.wordnet.WNTuple;
+import net.stargraph.rank.Rankable;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.StringReader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Indexes every built-in model in-process. Fields are named after the Elastic mapping, i.e s.id or hypernyms.word,
+ * and the serialized entry is stored along to be read back as a whole. Plain entities also carry their id and value
+ * as doc values so that hits can be built without decompressing the stored fields. Entity labels are also split in
+ * character n-grams when the model looks its candidates up that way. Large models can be split in shards, each with
+ * its own writer, directory and merges. With shadow reloads a reset load writes a new index aside, which replaces the
+ * live one only once complete.
+ */
 public final class LuceneIndexer extends BaseIndexer {
-    private Directory directory;
-    private IndexWriter writer;
-    private IndexWriterConfig writerConfig;
+    static final String SOURCE_FIELD = "_source";
+    static final String ID_FIELD = "id";
+    static final String VALUE_FIELD = "value";
+    static final String NGRAM_FIELD = "value.ngram";
+
+    private volatile Directory[] directories;
+    private volatile IndexWriter[] writers;
+    private Directory[] shadowDirectories;
+    private volatile IndexWriter[] shadowWriters;
+    private String shadowName;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private ExecutorService optimizer;
+    private LuceneSuggester suggester;
+    private boolean ngrams;
+    private final List<Runnable> flushListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> swapListeners = new CopyOnWriteArrayList<>();
 
     public LuceneIndexer(KBId kbId, Stargraph stargraph, Directory directory) {
+        this(kbId, stargraph, new Directory[] {Objects.requireNonNull(directory)}, null);
+    }
+
+    /**
+     * @param directories one per shard, entries are spread evenly among them.
+     * @param suggester rebuilt after each load when not null.
+     */
+    LuceneIndexer(KBId kbId, Stargraph stargraph, Directory[] directories, LuceneSuggester suggester) {
         super(kbId, stargraph);
-        this.directory = Objects.requireNonNull(directory);
+        if (directories.length == 0) {
+            throw new IllegalArgumentException("No shard directory.");
+        }
+        this.directories = directories;
+        this.suggester = suggester;
+        this.ngrams = LuceneFactory.isNGramCandidates(stargraph, kbId);
     }
 
     @Override
     protected void beforeLoad(boolean reset) {
-        if (reset) {
+        discardShadow(); // Left by a load that failed before its end.
+        if (reset && LuceneFactory.getLuceneConfig(stargraph, kbId).getBoolean("shadow-reload.enabled")) {
+            openShadow();
+        } else if (reset) {
             deleteAll();
         }
     }
@@ -65,7 +128,11 @@ public final class LuceneIndexer extends BaseIndexer {
     @Override
     protected void doIndex(Serializable data, KBId kbId) throws InterruptedException {
         try {
-            writer.addDocument(createDocument(data));
+            IndexWriter[] shadow = shadowWriters;
+            IndexWriter[] target = shadow != null ? shadow : writers;
+            // Nothing is updated by id, round robin keeps the shards even.
+            int shard = Math.floorMod(nextShard.getAndIncrement(), target.length);
+            target[shard].addDocument(createDocument(data));
         } catch (IOException e) {
             throw new StarGraphException(e);
         }
@@ -74,27 +141,67 @@ public final class LuceneIndexer extends BaseIndexer {
     @Override
     protected void doFlush() {
         try {
-            writer.flush();
+            for (IndexWriter writer : writers) {
+                writer.flush();
+            }
+            IndexWriter[] shadow = shadowWriters;
+            if (shadow != null) {
+                for (IndexWriter writer : shadow) {
+                    writer.flush();
+                }
+            }
         } catch (IOException e) {
             throw new StarGraphException("Flush error.", e);
         }
+        notifyFlush();
     }
 
     @Override
-    protected void afterLoad() throws InterruptedException {
+    protected void afterLoad(boolean completed) throws InterruptedException {
+        if (shadowWriters != null && !completed) {
+            // The live index was not touched, a partial rebuild must not replace it.
+            discardShadow();
+            return;
+        }
+
         try {
-            writer.commit();
-            writer.flush();
-            writer.forceMerge(1, true);
+            if (shadowWriters != null) {
+                swapShadow();
+            }
+            for (IndexWriter writer : writers) {
+                writer.commit();
+            }
+            logger.info(marker, "Committed {}, {} shard(s), {} segment(s).", kbId, writers.length, getSegmentCount());
         } catch (IOException e) {
            throw new StarGraphException("After loading error.", e);
         }
+        notifyFlush();
+
+        if (suggester != null) {
+            try (IndexReader reader = openReader()) {
+                suggester.build(reader);
+            } catch (IOException e) {
+                throw new StarGraphException("After loading error.", e);
+            }
+        }
+
+        int maxSegments = LuceneFactory.getLuceneConfig(stargraph, kbId).getInt("optimize.max-segments");
+        if (maxSegments > 0) {
+            optimizer.submit(() -> optimize(maxSegments));
+        }
+    }
+
+    @Override
+    protected boolean isConcurrentWriter() {
+        return true; // IndexWriter is thread-safe, each loader thread tokenizes its own documents.
     }
 
     @Override
     protected void doDeleteAll() {
         try {
-            writer.deleteAll();
+            for (IndexWriter writer : writers) {
+                writer.deleteAll();
+            }
         } catch (IOException e) {
             throw new StarGraphException("Delete error.", e);
         }
@@ -103,42 +210,327 @@ public final class LuceneIndexer extends BaseIndexer {
     @Override
     protected void onStart() {
         try {
-            writer = new IndexWriter(directory, getWriterConfig());
+            writers = new IndexWriter[directories.length];
+            for (int i = 0; i < directories.length; i++) {
+                writers[i] = new IndexWriter(directories[i], createWriterConfig(directories.length, i == 0));
+            }
         } catch (IOException e) {
             throw new StarGraphException("Fail to initialize the directory.", e);
         }
+        optimizer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "lucene-optimize-" + kbId);
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     @Override
     protected void onStop() {
+        discardShadow();
         try {
-            writer.close();
+            optimizer.shutdown();
+            // Closing the writers waits for running merges anyway.
+            IOUtils.close(writers);
         } catch (IOException e) {
             logger.error("Fail to close index.", e);
         }
     }
 
-    private IndexWriterConfig getWriterConfig() {
-        if (writerConfig == null) {
-            writerConfig = new IndexWriterConfig(new StandardAnalyzer());
-            writerConfig.setCommitOnClose(true);
+    /**
+     * One per shard, null until started. Near-real-time readers are opened from them.
+     */
+    IndexWriter[] getWriters() {
+        return writers;
+    }
+
+    /**
+     * Called once the writers were replaced, readers must be opened from the new ones.
+     */
+    void addSwapListener(Runnable listener) {
+        swapListeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Called once flushed documents can be seen by readers opened from the writers.
+     */
+    void addFlushListener(Runnable listener) {
+        flushListeners.add(Objects.requireNonNull(listener));
+    }
+
+    private void notifyFlush() {
+        for (Runnable listener : flushListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error(marker, "Flush listener failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Opens a new index next to the live one, the load goes there while the live one is still searched.
+     */
+    private void openShadow() {
+        try {
+            // Directories of swapped out indices are only removed now, no reader can be left on them.
+            LuceneFactory.deleteOtherIndices(stargraph, kbId, LuceneFactory.getIndexName(stargraph, kbId));
+
+            String name = LuceneFactory.newIndexName();
+            Directory[] dirs = LuceneFactory.openDirectories(stargraph, kbId, name);
+            IndexWriter[] shadow = new IndexWriter[dirs.length];
+            for (int i = 0; i < dirs.length; i++) {
+                IndexWriterConfig writerConfig = createWriterConfig(dirs.length, false);
+                writerConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+                shadow[i] = new IndexWriter(dirs[i], writerConfig);
+            }
+
+            shadowName = name;
+            shadowDirectories = dirs;
+            shadowWriters = shadow;
+            logger.info(marker, "Loading {} into shadow index '{}', the live one is kept meanwhile.", kbId, name);
+        } catch (IOException e) {
+            throw new StarGraphException("Fail to open shadow index of " + kbId, e);
+        }
+    }
+
+    /**
+     * Makes the shadow index of a completed load the live one if it holds every entry the loader handed over and no
+     * less than the configured ratio of the live ones, discards it otherwise. Queries running on the old one finish
+     * there.
+     */
+    private void swapShadow() throws IOException {
+        IndexWriter[] shadow = shadowWriters;
+        long liveDocs = countDocs(writers);
+        // Counted by the loader before indexing, entries that failed to be indexed are missing from the shadow.
+        long loadedDocs = getLoaderProgress().getTotalIndexed();
+        long newDocs;
+
+        try {
+            for (IndexWriter writer : shadow) {
+                writer.commit();
+            }
+            newDocs = countDocs(shadow);
+            double minRatio = LuceneFactory.getLuceneConfig(stargraph, kbId).getDouble("shadow-reload.min-ratio");
+            if (newDocs == 0 || newDocs != loadedDocs || newDocs < liveDocs * minRatio) {
+                throw new StarGraphException(String.format("Shadow index of %s rejected: %d documents, %d loaded, %d live.",
+                        kbId, newDocs, loadedDocs, liveDocs));
+            }
+            LuceneFactory.setIndexName(stargraph, kbId, shadowName);
+        } catch (IOException | RuntimeException e) {
+            discardShadow();
+            throw e;
+        }
+
+        IndexWriter[] retiredWriters = writers;
+        Directory[] retiredDirectories = directories;
+        String liveName = shadowName;
+        writers = shadow;
+        directories = shadowDirectories;
+        shadowWriters = null;
+        shadowDirectories = null;
+        shadowName = null;
+
+        for (Runnable listener : swapListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error(marker, "Swap listener failed.", e);
+            }
+        }
+        logger.info(marker, "Swapped in shadow index '{}' of {}: {} documents, {} before.", liveName, kbId, newDocs, liveDocs);
+
+        // After any optimize still running on them.
+        optimizer.submit(() -> {
+            try {
+                IOUtils.close(retiredWriters);
+                IOUtils.close(retiredDirectories);
+            } catch (Exception e) {
+                logger.error(marker, "Fail to close retired index of {}", kbId, e);
+            }
+            LuceneFactory.deleteOtherIndices(stargraph, kbId, liveName);
+        });
+    }
+
+    private void discardShadow() {
+        IndexWriter[] shadow = shadowWriters;
+        if (shadow != null) {
+            shadowWriters = null;
+            logger.warn(marker, "Discarding shadow index '{}' of {}", shadowName, kbId);
+            for (IndexWriter writer : shadow) {
+                try {
+                    writer.rollback();
+                } catch (IOException e) {
+                    logger.error(marker, "Fail to roll back shadow index of {}", kbId, e);
+                }
+            }
+            IOUtils.closeWhileHandlingException(shadowDirectories);
+            shadowDirectories = null;
+            shadowName = null;
+            try {
+                LuceneFactory.deleteOtherIndices(stargraph, kbId, LuceneFactory.getIndexName(stargraph, kbId));
+            } catch (IOException e) {
+                logger.warn(marker, "Fail to delete shadow index of {}", kbId, e);
+            }
+        }
+    }
+
+    private static long countDocs(IndexWriter[] writers) {
+        long count = 0;
+        for (IndexWriter writer : writers) {
+            count += writer.getDocStats().numDocs;
+        }
+        return count;
+    }
+
+    /**
+     * Merges down to maxSegments while the index stays searchable, the loader is not held meanwhile.
+     */
+    private void optimize(int maxSegments) {
+        long start = System.nanoTime();
+        try {
+            logger.info(marker, "Optimizing {} down to {} segment(s)..", kbId, maxSegments);
+            for (IndexWriter writer : writers) {
+                writer.forceMerge(maxSegments, true);
+                writer.commit();
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            logger.info(marker, "Optimized {} in {}ms, {} segment(s).", kbId, elapsed, getSegmentCount());
+            notifyFlush();
+        } catch (Exception e) {
+            logger.error(marker, "Fail to optimize {}", kbId, e);
+        }
+    }
+
+    private int getSegmentCount() throws IOException {
+        int count = 0;
+        for (Directory directory : directories) {
+            count += SegmentInfos.readLatestCommit(directory).size();
+        }
+        return count;
+    }
+
+    /**
+     * Every shard reader seen as one, closed along with it.
+     */
+    private IndexReader openReader() throws IOException {
+        if (writers.length == 1) {
+            return DirectoryReader.open(writers[0]);
+        }
+        IndexReader[] readers = new IndexReader[writers.length];
+        for (int i = 0; i < writers.length; i++) {
+            readers[i] = DirectoryReader.open(writers[i]);
+        }
+        return new MultiReader(readers, true);
+    }
+
+    /**
+     * A config, merge policy and scheduler can't be shared by writers, each shard gets its own.
+     */
+    private IndexWriterConfig createWriterConfig(int shards, boolean log) {
+        Config config = LuceneFactory.getLuceneConfig(stargraph, kbId);
+
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(config.getDouble("merge-policy.segments-per-tier"));
+        mergePolicy.setMaxMergedSegmentMB(config.getDouble("merge-policy.max-merged-segment-mb"));
+
+        ConcurrentMergeScheduler mergeScheduler = new ConcurrentMergeScheduler();
+        int maxThreads = config.getInt("merge-scheduler.max-threads");
+        if (maxThreads > 0) {
+            int maxMerges = config.getInt("merge-scheduler.max-merges");
+            maxMerges = maxMerges > 0 ? Math.max(maxMerges, maxThreads) : maxThreads + 5;
+            mergeScheduler.setMaxMergesAndThreads(maxMerges, maxThreads);
+        }
+
+        Analyzer analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(),
+                Collections.singletonMap(NGRAM_FIELD, new CharNGramAnalyzer()));
+
+        IndexWriterConfig writerConfig = new IndexWriterConfig(analyzer);
+        writerConfig.setCommitOnClose(true);
+        // The buffer is shared out among the shards.
+        writerConfig.setRAMBufferSizeMB(config.getDouble("ram-buffer-mb") / shards);
+        writerConfig.setMergePolicy(mergePolicy);
+        writerConfig.setMergeScheduler(mergeScheduler);
+
+        if (log) {
+            logger.info(marker, "Writer for each of the {} shard(s) of {}: ramBufferMB={}, {}, {}", shards,
+                    kbId, writerConfig.getRAMBufferSizeMB(), mergePolicy, mergeScheduler);
         }
         return writerConfig;
     }
 
-    private static Document createDocument(Serializable data) {
+    private Document createDocument(Serializable data) throws IOException {
         final Document doc = new Document();
 
-        //TODO support indexing of other types?
         if (data instanceof InstanceEntity) {
-            InstanceEntity entity = (InstanceEntity)data;
-            doc.add(new StringField("id", entity.getId(), Field.Store.YES));
-            doc.add(new TextField("value", entity.getValue(), Field.Store.YES));
+            InstanceEntity entity = (InstanceEntity) data;
+            doc.add(new StringField(ID_FIELD, entity.getId(), Field.Store.YES));
+            doc.add(new TextField(VALUE_FIELD, entity.getValue(), Field.Store.YES));
+            addTexts(doc, "otherValues", entity.getOtherValues());
+            if (ngrams) {
+                doc.add(new TextField(NGRAM_FIELD, entity.getValue(), Field.Store.NO));
+            }
+            if (entity.getOtherValues() == null || entity.getOtherValues().isEmpty()) {
+                // Otherwise the entity can only be rebuilt from the source.
+                doc.add(new BinaryDocValuesField(ID_FIELD, new BytesRef(entity.getId())));
+                doc.add(new BinaryDocValuesField(VALUE_FIELD, new BytesRef(entity.getValue())));
+            }
+        } else if (data instanceof Fact) {
+            Fact fact = (Fact) data;
+            if (fact.getSubject() instanceof Rankable) {
+                addEntity(doc, "s", (Rankable) fact.getSubject());
+            }
+            addEntity(doc, "p", fact.getPredicate());
+            addEntity(doc, "o", fact.getObject());
+        } else if (data instanceof PropertyEntity) {
+            PropertyEntity property = (PropertyEntity) data;
+            doc.add(new StringField("id", property.getId(), Field.Store.NO));
+            doc.add(new TextField("value", property.getValue(), Field.Store.NO));
+            addWords(doc, "hypernyms.word", property.getHypernyms());
+            addWords(doc, "hyponyms.word", property.getHyponyms());
+            addWords(doc, "synonyms.word", property.getSynonyms());
+        } else if (data instanceof net.stargraph.model.Document) {
+            net.stargraph.model.Document document = (net.stargraph.model.Document) data;
+            doc.add(new StringField("id", document.getId(), Field.Store.NO));
+            doc.add(new TextField("title", document.getTitle(), Field.Store.NO));
+            addText(doc, "summary", document.getSummary());
+            doc.add(new TextField("text", document.getText(), Field.Store.NO));
+            for (Passage passage : document.getPassages()) {
+                addText(doc, "passages.text", passage.getText());
+                if (passage.getEntities() != null) {
+                    passage.getEntities().forEach(e -> addEntity(doc, "passages.entities", e));
+                }
+            }
+        } else {
+            throw new UnsupportedOperationException("Can't index: " + data.getClass());
+        }
 
-            return doc;
+        doc.add(new StoredField(SOURCE_FIELD, mapper.writeValueAsBytes(data)));
+        return doc;
+    }
+
+    private static void addEntity(Document doc, String prefix, Rankable entity) {
+        doc.add(new StringField(prefix + ".id", entity.getId(), Field.Store.NO));
+        addText(doc, prefix + ".value", entity.getValue());
+        if (entity instanceof InstanceEntity) {
+            addTexts(doc, prefix + ".otherValues", ((InstanceEntity) entity).getOtherValues());
         }
+    }
 
-        throw new UnsupportedOperationException("Can't index: " + data.getClass());
+    private static void addWords(Document doc, String field, Collection<WNTuple> tuples) {
+        if (tuples != null) {
+            tuples.forEach(t -> addText(doc, field, t.getWord()));
+        }
     }
 
+    private static void addTexts(Document doc, String field, Collection<String> texts) {
+        if (texts != null) {
+            texts.forEach(text -> addText(doc, field, text));
+        }
+    }
+
+    private static void addText(Document doc, String field, String text) {
+        if (text != null) {
+            doc.add(new TextField(field, text, Field.Store.NO));
+        }
+    }
 }
@@ -2,9 +2,13 @@ package net.stargraph.core.impl.lucene;
 
 import net.stargraph.StarGraphException;
 import net.stargraph.core.search.SearchQueryHolder;
+import net.stargraph.core.search.SearchResult;
 import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +18,8 @@ import org.slf4j.MarkerFactory;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 public abstract class LuceneScroller implements Iterable<Score> {
@@ -24,6 +30,10 @@ public abstract class LuceneScroller implements Iterable<Score> {
     private SearchQueryHolder<Query> holder;
     private int maxEntries;
     private InnerIterator innerIterator;
+    private long totalHits;
+    private boolean totalHitsExact;
+    private long backendTime;
+    private long deserializationTime;
 
     public LuceneScroller(IndexSearcher indexSearcher, SearchQueryHolder<Query> holder) {
         this.indexSearcher = Objects.requireNonNull(indexSearcher);
@@ -35,42 +45,115 @@ public abstract class LuceneScroller implements Iterable<Score> {
     @Override
     public Iterator<Score> iterator() {
         logger.trace(marker, "Creating new scroller for {} with query: {}", indexSearcher, holder.getQuery());
+        totalHits = 0;
+        totalHitsExact = true;
+        backendTime = 0;
+        deserializationTime = 0;
         innerIterator = new InnerIterator();
         return innerIterator;
     }
 
-    public Scores getScores() {
+    /**
+     * Materializes all hits in a single pass. Nothing crosses the wire hence no bytes are accounted.
+     */
+    public SearchResult getResult() {
         Scores scores = new Scores();
         this.forEach(scores::add);
-        return scores;
+        return new SearchResult(scores, totalHits, totalHitsExact, backendTime, deserializationTime, 0);
     }
 
     protected abstract Score build(Document hitDoc, ScoreDoc hit);
 
+    /**
+     * Builds a hit from the id and value doc values. Returning null falls back to the stored fields.
+     */
+    protected Score build(String id, String value, ScoreDoc hit) {
+        return null;
+    }
+
+    /**
+     * Builds what can be built from doc values, visiting the hits in docId order so each segment's iterators only
+     * move forward. Slots left null have no doc values, i.e indexed before they were added.
+     */
+    private Score[] buildFromDocValues(ScoreDoc[] hits) throws IOException {
+        Score[] scores = new Score[hits.length];
+        List<LeafReaderContext> leaves = indexSearcher.getIndexReader().leaves();
+
+        // docId in the upper half, position in the lower one.
+        long[] order = new long[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            order[i] = ((long) hits[i].doc << 32) | i;
+        }
+        Arrays.sort(order);
+
+        LeafReaderContext leaf = null;
+        BinaryDocValues ids = null;
+        BinaryDocValues values = null;
+        int leafEnd = 0;
+
+        for (long key : order) {
+            int doc = (int) (key >>> 32);
+            int pos = (int) key;
+
+            if (leaf == null || doc >= leafEnd) {
+                leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                leafEnd = leaf.docBase + leaf.reader().maxDoc();
+                ids = leaf.reader().getBinaryDocValues(LuceneIndexer.ID_FIELD);
+                values = leaf.reader().getBinaryDocValues(LuceneIndexer.VALUE_FIELD);
+            }
+
+            if (ids != null && values != null) {
+                int target = doc - leaf.docBase;
+                if (ids.advanceExact(target) && values.advanceExact(target)) {
+                    scores[pos] = build(ids.binaryValue().utf8ToString(), values.binaryValue().utf8ToString(), hits[pos]);
+                }
+            }
+        }
+
+        return scores;
+    }
+
     private class InnerIterator implements Iterator<Score> {
-        Iterator<ScoreDoc> innerIt;
+        ScoreDoc[] hits;
+        Score[] prebuilt;
+        int next;
 
         @Override
         public boolean hasNext() {
             boolean hasNext = false;
 
             try {
-                if (innerIt == null) {
-                    // TODO instead of setting Integer.MAX_VALUE, use low-level search(Query query, HitCollector results) instead?
-                    TopDocs response = indexSearcher.search(
-                            holder.getQuery(),
-                            (maxEntries < 0) ? Integer.MAX_VALUE : maxEntries,
-                            Sort.RELEVANCE);
+                if (hits == null) {
+                    long start = System.nanoTime();
+                    TopDocs response;
+
+                    if (maxEntries < 0) {
+                        response = indexSearcher.search(holder.getQuery(), Integer.MAX_VALUE, Sort.RELEVANCE);
+                    } else {
+                        // Bounded top-K. Non-competitive hits are skipped once K entries are collected.
+                        // Through a manager the slices are searched concurrently on the searcher's executor.
+                        int numHits = Math.max(1, maxEntries);
+                        response = indexSearcher.search(holder.getQuery(),
+                                TopScoreDocCollector.createSharedManager(numHits, null, numHits));
+                    }
+
+                    backendTime += System.nanoTime() - start;
+                    totalHits = response.totalHits.value;
+                    totalHitsExact = response.totalHits.relation == TotalHits.Relation.EQUAL_TO;
+                    hits = response.scoreDocs;
 
-                    innerIt = Arrays.asList(response.scoreDocs).iterator();
-                    hasNext = innerIt.hasNext();
+                    start = System.nanoTime();
+                    prebuilt = buildFromDocValues(hits);
+                    deserializationTime += System.nanoTime() - start;
+
+                    hasNext = hits.length > 0;
 
                     if (hasNext) {
                         logger.trace(marker, "Iterating over {}", response.totalHits);
                     }
 
                 } else {
-                    hasNext = innerIt.hasNext();
+                    hasNext = next < hits.length;
                 }
 
                 return hasNext;
@@ -83,10 +166,19 @@ public abstract class LuceneScroller implements Iterable<Score> {
 
         @Override
         public Score next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
             try {
-                ScoreDoc scoreDoc = innerIt.next();
-                Document doc = indexSearcher.doc(scoreDoc.doc);
-                Score score = build(doc, scoreDoc);
+                int pos = next++;
+                Score score = prebuilt[pos];
+                if (score == null) {
+                    long start = System.nanoTime();
+                    ScoreDoc scoreDoc = hits[pos];
+                    Document doc = indexSearcher.doc(scoreDoc.doc);
+                    score = build(doc, scoreDoc);
+                    deserializationTime += System.nanoTime() - start;
+                }
                 if (score == null) {
                     throw new IllegalStateException("Can't return a NULL entry");
                 }
@@ -1,77 +1,236 @@
 package net.stargraph.core.impl.lucene;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import net.stargraph.StarGraphException;
 import net.stargraph.core.search.SearchQueryGenerator;
 import net.stargraph.core.search.SearchQueryHolder;
 import net.stargraph.model.InstanceEntity;
 import net.stargraph.rank.ModifiableSearchParams;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 import org.apache.lucene.index.Term;
-import org.apache.lucene.queries.TermsQuery;
-import org.apache.lucene.queryparser.classic.ParseException;
-import org.apache.lucene.queryparser.complexPhrase.ComplexPhraseQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Same queries as the Elastic generator over the fields written by LuceneIndexer.
+ * Fuzzy instance queries are built straight from the analyzed tokens and kept in a cache bounded by memory,
+ * the same names being looked up over and over by NER and the query engine. Instead of fuzzy terms, candidates can
+ * be looked up by the character n-grams they share with the search term, which does not enumerate the dictionary.
+ */
 public class LuceneSearchQueryGenerator implements SearchQueryGenerator {
+    // Analyzed the same way as indexed.
+    private static final Analyzer analyzer = new StandardAnalyzer();
+    private static final QueryBuilder matchBuilder = new QueryBuilder(analyzer);
+    private static final Analyzer ngramAnalyzer = new CharNGramAnalyzer();
+
+    // Rough footprint of a fuzzy clause, its term and boolean clause wrapper.
+    private static final int CLAUSE_BYTES = 512;
+    private static final int MAX_EXPANSIONS = 50;
+
+    private final Cache<String, Query> instanceQueries;
+    private final boolean ngramCandidates;
+
+    /**
+     * @param cacheBytes memory budget of the instance query cache, 0 disables it.
+     * @param ngramCandidates match instances on the n-grams field, must have been indexed.
+     */
+    public LuceneSearchQueryGenerator(long cacheBytes, boolean ngramCandidates) {
+        this.ngramCandidates = ngramCandidates;
+        this.instanceQueries = cacheBytes > 0 ? CacheBuilder.newBuilder()
+                .maximumWeight(cacheBytes)
+                .weigher((String key, Query query) -> key.length() * 2 + CLAUSE_BYTES * countClauses(query))
+                .build() : null;
+    }
 
     @Override
     public SearchQueryHolder findClassFacts(ModifiableSearchParams searchParams) {
-        //TODO implement
-        throw new UnsupportedOperationException("Not implemented yet");
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("p.id", "is-a")), BooleanClause.Occur.MUST);
+        addShould(queryBuilder, match("o.value", searchParams.getSearchTerm()));
+        queryBuilder.setMinimumNumberShouldMatch(1);
+        return new LuceneQueryHolder(queryBuilder.build(), searchParams);
     }
 
     @Override
     public SearchQueryHolder entitiesWithIds(List<String> idList, ModifiableSearchParams searchParams) {
-        List<Term> terms = new ArrayList<>();
+        List<BytesRef> terms = new ArrayList<>(idList.size());
         for (String id : idList) {
-            terms.add(new Term("id", id));
+            terms.add(new BytesRef(id));
         }
-        Query query = new TermsQuery(terms);
+        Query query = new TermInSetQuery("id", terms);
 
         return new LuceneQueryHolder(query, searchParams);
     }
 
     @Override
     public SearchQueryHolder findEntityInstances(ModifiableSearchParams searchParams, int maxEdits) {
-        //Query query = new FuzzyQuery(new Term("value", searchParams.getSearchTerm()), maxEdits, 0, 50, false); // This does not take into account multiple words of the search term
-        Query query = fuzzyPhraseSearch("value", searchParams.getSearchTerm(), maxEdits);
+        String searchTerm = searchParams.getSearchTerm();
+        Query query;
+
+        if (instanceQueries != null) {
+            try {
+                query = instanceQueries.get(maxEdits + ":" + searchTerm, () -> instanceMatch(searchTerm, maxEdits));
+            } catch (ExecutionException e) {
+                throw new StarGraphException(e.getCause());
+            }
+        } else {
+            query = instanceMatch(searchTerm, maxEdits);
+        }
 
         return new LuceneQueryHolder(query, searchParams);
     }
 
     @Override
     public SearchQueryHolder findPropertyInstances(ModifiableSearchParams searchParams) {
-        //TODO implement
-        throw new UnsupportedOperationException("Not implemented yet");
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+        addShould(queryBuilder, match("hyponyms.word", searchParams.getSearchTerm()));
+        addShould(queryBuilder, match("hypernyms.word", searchParams.getSearchTerm()));
+        addShould(queryBuilder, match("synonyms.word", searchParams.getSearchTerm()));
+        queryBuilder.setMinimumNumberShouldMatch(1);
+        return new LuceneQueryHolder(queryBuilder.build(), searchParams);
     }
 
     @Override
     public SearchQueryHolder findPivotFacts(InstanceEntity pivot, ModifiableSearchParams searchParams) {
-        //TODO implement
-        throw new UnsupportedOperationException("Not implemented yet");
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("s.id", pivot.getId())), BooleanClause.Occur.SHOULD)
+                .add(new TermQuery(new Term("o.id", pivot.getId())), BooleanClause.Occur.SHOULD)
+                .setMinimumNumberShouldMatch(1)
+                .build();
+        return new LuceneQueryHolder(query, searchParams);
     }
 
+    /**
+     * Any of the analyzed terms, null when nothing is left after analysis.
+     */
+    private static Query match(String field, String text) {
+        return matchBuilder.createBooleanQuery(field, text);
+    }
+
+    private static void addShould(BooleanQuery.Builder queryBuilder, Query query) {
+        if (query != null) {
+            queryBuilder.add(query, BooleanClause.Occur.SHOULD);
+        }
+    }
 
-    private static Query fuzzyPhraseSearch(String field, String searchTerm, int maxEdits) {
-        StringBuilder queryStr = new StringBuilder();
-        queryStr.append(field).append(":(");
+    private Query instanceMatch(String searchTerm, int maxEdits) {
+        if (ngramCandidates) {
+            return ngramMatch(LuceneIndexer.NGRAM_FIELD, searchTerm, maxEdits);
+        }
+        return fuzzyMatch(LuceneIndexer.VALUE_FIELD, searchTerm, maxEdits);
+    }
 
-        String words[] = searchTerm.split("\\s+");
-        for (int i = 0; i < words.length; i++) {
-            if (i > 0) {
-                queryStr.append(" AND ");
+    /**
+     * All of the analyzed tokens, each within its own edit distance. Matches the Elastic fuzzy match with AND operator.
+     */
+    static Query fuzzyMatch(String field, String searchTerm, int maxEdits) {
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+        int clauses = 0;
+
+        try (TokenStream stream = analyzer.tokenStream(field, searchTerm)) {
+            CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                Term term = new Term(field, termAtt.toString());
+                int edits = maxEdits(termAtt.length(), maxEdits);
+                Query tokenQuery = edits > 0 ? new FuzzyQuery(term, edits, 0, MAX_EXPANSIONS, false) : new TermQuery(term);
+                queryBuilder.add(tokenQuery, BooleanClause.Occur.MUST);
+                clauses++;
             }
-            queryStr.append(ComplexPhraseQueryParser.escape(words[i])).append("~").append(maxEdits);
+            stream.end();
+        } catch (IOException e) {
+            throw new StarGraphException(e);
         }
-        queryStr.append(")");
 
-        try {
-            return new ComplexPhraseQueryParser("value", new StandardAnalyzer()).parse(queryStr.toString());
-        } catch (ParseException e) {
+        return clauses > 0 ? queryBuilder.build() : new MatchNoDocsQuery("Nothing left after analysis: " + searchTerm);
+    }
+
+    /**
+     * Enough of the distinct n-grams to allow in every word the edits a fuzzy match would, scored by how many and how
+     * rare the shared ones are. See {@link #minShouldMatch(List, int, int)}.
+     */
+    static Query ngramMatch(String field, String searchTerm, int maxEdits) {
+        Set<String> grams = new LinkedHashSet<>();
+        List<Integer> wordGrams = new ArrayList<>();
+
+        try (TokenStream stream = ngramAnalyzer.tokenStream(field, searchTerm)) {
+            CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                if (posIncAtt.getPositionIncrement() > 0 || wordGrams.isEmpty()) {
+                    wordGrams.add(0); // First gram of the next word.
+                }
+                wordGrams.set(wordGrams.size() - 1, wordGrams.get(wordGrams.size() - 1) + 1);
+                grams.add(termAtt.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
             throw new StarGraphException(e);
         }
+
+        if (grams.isEmpty()) {
+            return new MatchNoDocsQuery("Nothing left after analysis: " + searchTerm);
+        }
+
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+        for (String gram : grams) {
+            queryBuilder.add(new TermQuery(new Term(field, gram)), BooleanClause.Occur.SHOULD);
+        }
+        queryBuilder.setMinimumNumberShouldMatch(minShouldMatch(wordGrams, grams.size(), maxEdits));
+        return queryBuilder.build();
+    }
+
+    /**
+     * q-gram lemma, per word: a word of L chars split in L + q - 1 grams shares at least L + q - 1 - q * k of them with
+     * any form within k edits. Grams repeated across words are only counted once by the query, so the repeats are
+     * taken off the sum.
+     *
+     * @param wordGrams Grams of each word, repeats included.
+     * @param distinctGrams Distinct grams of the whole term.
+     */
+    static int minShouldMatch(List<Integer> wordGrams, int distinctGrams, int maxEdits) {
+        int total = 0;
+        int shared = 0;
+        for (int grams : wordGrams) {
+            int edits = maxEdits(CharNGramAnalyzer.wordLength(grams), maxEdits);
+            total += grams;
+            shared += Math.max(0, grams - edits * CharNGramAnalyzer.MAX_CHANGED_PER_EDIT);
+        }
+        return Math.max(1, shared - (total - distinctGrams));
+    }
+
+    /**
+     * Short tokens would match almost anything within the same distance as long ones, so as Elastic AUTO fuzziness
+     * tokens up to 2 chars must match exactly and up to 5 chars within a single edit.
+     */
+    static int maxEdits(int tokenLength, int maxEdits) {
+        if (tokenLength <= 2) {
+            return 0;
+        }
+        return Math.min(tokenLength <= 5 ? 1 : 2, maxEdits);
+    }
+
+    private static int countClauses(Query query) {
+        return query instanceof BooleanQuery ? ((BooleanQuery) query).clauses().size() : 1;
     }
 }
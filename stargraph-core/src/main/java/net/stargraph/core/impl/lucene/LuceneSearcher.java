@@ -26,10 +26,14 @@ package net.stargraph.core.impl.lucene;
  * ==========================License-End===============================
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import net.stargraph.StarGraphException;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.search.BaseSearcher;
 import net.stargraph.core.search.SearchQueryHolder;
+import net.stargraph.core.search.SearchResult;
+import net.stargraph.core.serializer.ObjectSerializer;
+import net.stargraph.model.BuiltInModel;
 import net.stargraph.model.InstanceEntity;
 import net.stargraph.model.KBId;
 import net.stargraph.rank.Score;
@@ -37,53 +41,114 @@ import net.stargraph.rank.Scores;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Searches through reference counted SearcherManagers, one per shard. Readers are opened from the indexer's writers
+ * when there is one, so flushed documents become visible on the next refresh without committing.
+ * The segments of all shards are searched concurrently on the shared pool and their top hits merged.
+ * Hits are built from doc values when available and deserialized from the stored source otherwise.
+ * When the indexer swaps in a rebuilt index new managers are opened on it, queries already running end on the old one.
+ */
 public final class LuceneSearcher extends BaseSearcher {
-    private Directory directory;
-    private IndexReader indexReader;
-    private IndexSearcher indexSearcher;
+    private Directory[] directories;
+    private LuceneIndexer indexer;
+    private LuceneSuggester suggester;
+    private LuceneFactory factory;
+    private volatile ExecutorService executor;
+    private ObjectMapper mapper;
+    private volatile SearcherManager[] searcherManagers;
+    private ScheduledExecutorService refresher;
 
     public LuceneSearcher(KBId kbId, Stargraph core, Directory directory) {
+        this(kbId, core, directory, null);
+    }
+
+    public LuceneSearcher(KBId kbId, Stargraph core, Directory directory, LuceneIndexer indexer) {
+        this(kbId, core, new Directory[] {Objects.requireNonNull(directory)}, indexer, null, null);
+    }
+
+    /**
+     * @param directories one per shard, in the same order as the indexer's.
+     * @param factory lends the pool shared by its searchers while started, segments are searched on the calling
+     *                thread when null.
+     */
+    LuceneSearcher(KBId kbId, Stargraph core, Directory[] directories, LuceneIndexer indexer,
+                   LuceneSuggester suggester, LuceneFactory factory) {
         super(kbId, core);
-        this.directory = Objects.requireNonNull(directory);
+        if (directories.length == 0) {
+            throw new IllegalArgumentException("No shard directory.");
+        }
+        this.directories = directories;
+        this.indexer = indexer;
+        this.suggester = suggester;
+        this.factory = factory;
+        this.mapper = ObjectSerializer.createMapper(kbId);
     }
 
     @Override
-    public Scores search(SearchQueryHolder holder) {
-        IndexSearcher idxSearcher = getLuceneSearcher();
-        if (idxSearcher != null) {
-            LuceneScroller scroller = null;
+    public SearchResult search(SearchQueryHolder holder) {
+        ShardSearchers acquired = acquire();
+        if (acquired != null) {
+            LuceneScroller scroller;
+            SearchResult result = null;
             long start = System.nanoTime();
+            String modelName = holder.getSearchParams().getKbId().getModel();
+            Class<Serializable> modelClass = BuiltInModel.getModelClass(modelName);
+            IndexSearcher[] shardSearchers = acquired.searchers;
+            IndexSearcher idxSearcher = null;
 
             try {
+                idxSearcher = combine(shardSearchers);
                 scroller = new LuceneScroller(idxSearcher, holder) {
                     @Override
                     protected Score build(Document hitDoc, ScoreDoc hit) {
                         try {
-                            //TODO support indexing of other types?
-                            String id = hitDoc.get("id");
-                            String value = hitDoc.get("value");
-                            InstanceEntity entity = new InstanceEntity(id, value);
+                            BytesRef source = hitDoc.getBinaryValue(LuceneIndexer.SOURCE_FIELD);
+                            if (source == null) {
+                                // Indexed before the entries were stored, only entities were supported then.
+                                return new Score(new InstanceEntity(hitDoc.get("id"), hitDoc.get("value")), hit.score);
+                            }
 
+                            Serializable entity = mapper.readValue(source.bytes, source.offset, source.length, modelClass);
                             return new Score(entity, hit.score);
                         } catch (Exception e) {
                             logger.error(marker, "Fail to deserialize document {}", hit.doc, e);
                         }
                         return null;
                     }
+
+                    @Override
+                    protected Score build(String id, String value, ScoreDoc hit) {
+                        // Only entities without other values carry doc values, see LuceneIndexer.
+                        return new Score(new InstanceEntity(id, value), hit.score);
+                    }
                 };
 
-                return scroller.getScores();
+                result = scroller.getResult();
+                return result;
             } finally {
+                uncombine(shardSearchers, idxSearcher);
+                release(acquired.managers, shardSearchers);
                 double elapsedInMillis = (System.nanoTime() - start) / 1000_000;
-                logger.debug(marker, "Took {}ms, {}, fetched {} entries.", elapsedInMillis,
-                        holder.getQuery(), scroller != null ? scroller.getScores().size() : 0);
+                logger.debug(marker, "Took {}ms, {}, {}", elapsedInMillis, holder.getQuery(), result);
             }
         }
         throw new StarGraphException("Index not found for " + kbId);
@@ -91,41 +156,265 @@ public final class LuceneSearcher extends BaseSearcher {
 
     @Override
     public long countDocuments() {
-        IndexSearcher idxSearcher = getLuceneSearcher();
-        if (idxSearcher != null) {
-            return idxSearcher.getIndexReader().numDocs();
+        ShardSearchers acquired = acquire();
+        if (acquired != null) {
+            try {
+                long count = 0;
+                for (IndexSearcher shardSearcher : acquired.searchers) {
+                    count += shardSearcher.getIndexReader().numDocs();
+                }
+                return count;
+            } finally {
+                release(acquired.managers, acquired.searchers);
+            }
         }
         throw new StarGraphException("Index not found for " + kbId);
     }
 
+    @Override
+    public boolean supportsSuggest() {
+        return suggester != null;
+    }
+
+    @Override
+    public Scores suggest(String prefix, int limit) {
+        if (suggester == null) {
+            return super.suggest(prefix, limit);
+        }
+        return suggester.lookup(prefix, limit);
+    }
+
+    /**
+     * Makes what was indexed so far searchable, waiting for a refresh already in progress.
+     */
+    public void refresh() {
+        SearcherManager[] managers = getSearcherManagers();
+        if (managers != null) {
+            try {
+                for (SearcherManager manager : managers) {
+                    manager.maybeRefreshBlocking();
+                }
+            } catch (IOException e) {
+                throw new StarGraphException(e);
+            }
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        if (factory != null) {
+            executor = factory.acquireSearchExecutor(stargraph);
+        }
+        if (indexer != null) {
+            indexer.addFlushListener(this::refresh);
+            indexer.addSwapListener(this::swap);
+        }
+
+        long interval = getRefreshInterval();
+        if (interval > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "lucene-refresh-" + kbId);
+                t.setDaemon(true);
+                return t;
+            });
+            refresher.scheduleWithFixedDelay(this::periodicRefresh, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
 
     @Override
     protected void onStop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
         try {
-            if (indexReader != null) {
-                indexReader.close();
-                indexReader = null;
+            SearcherManager[] managers = searcherManagers;
+            if (managers != null) {
+                searcherManagers = null;
+                IOUtils.close(managers);
+            }
+        } catch (IOException e) {
+            throw new StarGraphException(e);
+        } finally {
+            if (factory != null) {
+                executor = null;
+                factory.releaseSearchExecutor();
+            }
+        }
+    }
+
+    /**
+     * Replaces the managers by ones on the indexer's current writers. Searchers acquired from the old managers are
+     * still released to them, the old readers are closed on their last release.
+     */
+    private void swap() {
+        SearcherManager[] retired;
+        synchronized (this) {
+            retired = searcherManagers;
+            searcherManagers = openSearcherManagers();
+        }
+        if (retired != null) {
+            try {
+                IOUtils.close(retired);
+            } catch (IOException e) {
+                logger.warn(marker, "Fail to close retired searchers of {}", kbId, e);
+            }
+        }
+        logger.info(marker, "Searching the swapped in index of {}", kbId);
+    }
+
+    /**
+     * Skipped during a load, each reopen would flush the writer's buffer into a small segment. The load ends with
+     * a flush that refreshes anyway.
+     */
+    private void periodicRefresh() {
+        if (indexer != null && indexer.isLoading()) {
+            return;
+        }
+        SearcherManager[] managers = searcherManagers;
+        if (managers != null) {
+            try {
+                for (SearcherManager manager : managers) {
+                    manager.maybeRefresh();
+                }
+            } catch (Exception e) {
+                logger.warn(marker, "Fail to refresh {}", kbId, e);
             }
+        }
+    }
+
+    /**
+     * A single shard is searched as is, several through a reader over all of their segments.
+     */
+    private IndexSearcher combine(IndexSearcher[] shardSearchers) {
+        if (shardSearchers.length == 1) {
+            return shardSearchers[0];
+        }
+        IndexReader[] readers = new IndexReader[shardSearchers.length];
+        for (int i = 0; i < shardSearchers.length; i++) {
+            readers[i] = shardSearchers[i].getIndexReader();
+        }
+        try {
+            // Shard readers are referenced until closed, the managers still own them.
+            return new IndexSearcher(new MultiReader(readers, false), executor);
         } catch (IOException e) {
             throw new StarGraphException(e);
         }
     }
 
-    private synchronized IndexSearcher getLuceneSearcher() {
+    private void uncombine(IndexSearcher[] shardSearchers, IndexSearcher idxSearcher) {
+        if (idxSearcher != null && shardSearchers.length > 1) {
+            try {
+                idxSearcher.getIndexReader().close();
+            } catch (IOException e) {
+                logger.error(marker, "Fail to close reader of {}", kbId, e);
+            }
+        }
+    }
+
+    /**
+     * A searcher of every shard from the same managers, null until there is an index. When a swap closes the managers
+     * midway what was acquired is released and the swapped in ones are tried instead.
+     */
+    private ShardSearchers acquire() {
+        while (true) {
+            SearcherManager[] managers = getSearcherManagers();
+            if (managers == null) {
+                return null;
+            }
+            IndexSearcher[] shardSearchers = new IndexSearcher[managers.length];
+            boolean acquired = false;
+            try {
+                for (int i = 0; i < managers.length; i++) {
+                    shardSearchers[i] = managers[i].acquire();
+                }
+                acquired = true;
+                return new ShardSearchers(managers, shardSearchers);
+            } catch (AlreadyClosedException e) {
+                SearcherManager[] current = searcherManagers;
+                if (current == null || current == managers) {
+                    throw new StarGraphException("Searchers of " + kbId + " are closed.", e);
+                }
+                logger.debug(marker, "Searchers of {} swapped while acquiring, retrying.", kbId);
+            } catch (IOException e) {
+                throw new StarGraphException(e);
+            } finally {
+                if (!acquired) {
+                    release(managers, shardSearchers);
+                }
+            }
+        }
+    }
+
+    private void release(SearcherManager[] managers, IndexSearcher[] shardSearchers) {
+        for (int i = 0; i < managers.length; i++) {
+            if (shardSearchers[i] != null) {
+                try {
+                    managers[i].release(shardSearchers[i]);
+                } catch (IOException e) {
+                    logger.error(marker, "Fail to release searcher of {}", kbId, e);
+                }
+            }
+        }
+    }
+
+    private static final class ShardSearchers {
+        private final SearcherManager[] managers;
+        private final IndexSearcher[] searchers;
+
+        ShardSearchers(SearcherManager[] managers, IndexSearcher[] searchers) {
+            this.managers = managers;
+            this.searchers = searchers;
+        }
+    }
+
+    private SearcherManager[] getSearcherManagers() {
+        SearcherManager[] managers = searcherManagers;
+        if (managers == null) {
+            synchronized (this) {
+                managers = searcherManagers;
+                if (managers == null) {
+                    managers = searcherManagers = openSearcherManagers();
+                }
+            }
+        }
+        return managers;
+    }
+
+    /**
+     * Null until every shard has an index.
+     */
+    private SearcherManager[] openSearcherManagers() {
+        SearcherFactory searcherFactory = new SearcherFactory() {
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+                return new IndexSearcher(reader, executor);
+            }
+        };
+
+        // A swapped in index may have a different number of shards.
+        IndexWriter[] writers = indexer != null ? indexer.getWriters() : null;
+        SearcherManager[] managers = new SearcherManager[writers != null ? writers.length : directories.length];
         try {
-            if (indexReader == null) {
-                if (!DirectoryReader.indexExists(directory)) {
+            for (int i = 0; i < managers.length; i++) {
+                if (writers != null) {
+                    managers[i] = new SearcherManager(writers[i], true, false, searcherFactory);
+                } else if (DirectoryReader.indexExists(directories[i])) {
+                    managers[i] = new SearcherManager(directories[i], searcherFactory);
+                } else {
+                    IOUtils.close(managers);
                     return null;
                 }
-                indexReader = DirectoryReader.open(directory);
-                indexSearcher = new IndexSearcher(indexReader);
             }
-            return indexSearcher;
+            return managers;
         }
         catch (IOException e) {
+            IOUtils.closeWhileHandlingException(managers);
             throw new StarGraphException(e);
         }
     }
-}
-
 
+    private long getRefreshInterval() {
+        return LuceneFactory.getLuceneConfig(stargraph, kbId).getDuration("refresh-interval", TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,340 @@
+package net.stargraph.core.impl.lucene;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import net.stargraph.StarGraphException;
+import net.stargraph.core.KBCore;
+import net.stargraph.core.Namespace;
+import net.stargraph.core.Stargraph;
+import net.stargraph.model.InstanceEntity;
+import net.stargraph.model.KBId;
+import net.stargraph.rank.Scores;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphStatisticsHandler;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.suggest.InputIterator;
+import org.apache.lucene.search.suggest.Lookup;
+import org.apache.lucene.search.suggest.analyzing.AnalyzingSuggester;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Prefix lookup of entity labels. An FST is built from the loaded index, each label weighted by how many triples
+ * its entity takes part in, and saved next to the index so it's back after a restart.
+ * Entities indexed after the load are only suggested once the next load rebuilds it.
+ */
+final class LuceneSuggester {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("lucene");
+
+    private KBId kbId;
+    private Stargraph stargraph;
+    private Path path;
+    private volatile AnalyzingSuggester suggester;
+
+    LuceneSuggester(KBId kbId, Stargraph stargraph, Path path) {
+        this.kbId = Objects.requireNonNull(kbId);
+        this.stargraph = Objects.requireNonNull(stargraph);
+        this.path = Objects.requireNonNull(path);
+    }
+
+    /**
+     * Entities whose label starts with the prefix, most popular first. Empty until built.
+     */
+    Scores lookup(String prefix, int limit) {
+        AnalyzingSuggester current = getSuggester();
+        if (current == null) {
+            logger.warn(marker, "No suggestions for {} before it's loaded.", kbId);
+            return new Scores(0);
+        }
+
+        try {
+            List<Lookup.LookupResult> results = current.lookup(prefix, false, limit);
+            Scores scores = new Scores(results.size());
+            for (Lookup.LookupResult result : results) {
+                scores.add(new InstanceEntity(result.payload.utf8ToString(), result.key.toString()), result.value);
+            }
+            return scores;
+        } catch (IOException e) {
+            throw new StarGraphException(e);
+        }
+    }
+
+    /**
+     * Replaces the suggester with one over every entity of the reader. Lookups keep going on the old one meanwhile.
+     */
+    void build(IndexReader reader) {
+        Config config = LuceneFactory.getLuceneConfig(stargraph, kbId);
+        long minPopularity = config.getLong("suggest.min-popularity");
+        long start = System.nanoTime();
+        Path tempPath = null;
+
+        try {
+            tempPath = Files.createTempDirectory("stargraph-suggest-");
+            try (Directory tempDir = FSDirectory.open(tempPath)) {
+                AnalyzingSuggester built = new AnalyzingSuggester(tempDir, "suggest", new StandardAnalyzer());
+                built.build(new EntityInputIterator(reader, createPopularity(), minPopularity));
+
+                try (OutputStream out = Files.newOutputStream(path)) {
+                    built.store(out);
+                }
+                suggester = built;
+
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                logger.info(marker, "Suggester of {} built in {}ms: {} labels, {} bytes.",
+                        kbId, elapsed, built.getCount(), built.ramBytesUsed());
+            }
+        } catch (IOException e) {
+            throw new StarGraphException("Fail to build suggester of " + kbId, e);
+        } finally {
+            deleteTemp(tempPath);
+        }
+    }
+
+    private void deleteTemp(Path tempPath) {
+        if (tempPath != null) {
+            try {
+                IOUtils.rm(tempPath);
+            } catch (IOException e) {
+                logger.warn(marker, "Fail to delete {}", tempPath, e);
+            }
+        }
+    }
+
+    private AnalyzingSuggester getSuggester() {
+        AnalyzingSuggester current = suggester;
+        if (current == null && Files.exists(path)) {
+            synchronized (this) {
+                current = suggester;
+                if (current == null) {
+                    current = suggester = load();
+                }
+            }
+        }
+        return current;
+    }
+
+    private AnalyzingSuggester load() {
+        try (InputStream in = Files.newInputStream(path)) {
+            // Temporary files are only written while building.
+            AnalyzingSuggester loaded = new AnalyzingSuggester(new ByteBuffersDirectory(), "suggest", new StandardAnalyzer());
+            loaded.load(in);
+            logger.info(marker, "Suggester of {} loaded from {}", kbId, path);
+            return loaded;
+        } catch (IOException e) {
+            throw new StarGraphException("Fail to load suggester of " + kbId, e);
+        }
+    }
+
+    /**
+     * Number of triples the entity is part of, estimated by the graph when it can.
+     */
+    private ToLongFunction<String> createPopularity() {
+        KBCore core = stargraph.getKBCore(kbId.getId());
+        return new Popularity(core.getNamespace(), core.getGraphModel().getGraph());
+    }
+
+    /**
+     * Asks the graph statistics first. Otherwise every triple is counted once, on the first entity they can't answer,
+     * instead of two scans per entity.
+     */
+    private final class Popularity implements ToLongFunction<String> {
+        private final Namespace namespace;
+        private final Graph graph;
+        private final GraphStatisticsHandler stats;
+        private Map<String, long[]> counts;
+
+        Popularity(Namespace namespace, Graph graph) {
+            this.namespace = namespace;
+            this.graph = graph;
+            this.stats = graph.getStatisticsHandler();
+        }
+
+        @Override
+        public long applyAsLong(String id) {
+            String uri = namespace.expandURI(id);
+            if (stats != null && counts == null) {
+                Node node = NodeFactory.createURI(uri);
+                long asSubject = stats.getStatistic(node, Node.ANY, Node.ANY);
+                long asObject = stats.getStatistic(Node.ANY, Node.ANY, node);
+                if (asSubject >= 0 && asObject >= 0) {
+                    return asSubject + asObject;
+                }
+            }
+            if (counts == null) {
+                counts = countTriples();
+            }
+            long[] count = counts.get(uri);
+            return count != null ? count[0] : 0;
+        }
+
+        private Map<String, long[]> countTriples() {
+            long start = System.nanoTime();
+            Map<String, long[]> byURI = new HashMap<>();
+            ExtendedIterator<Triple> it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+            try {
+                while (it.hasNext()) {
+                    Triple triple = it.next();
+                    if (triple.getSubject().isURI()) {
+                        byURI.computeIfAbsent(triple.getSubject().getURI(), k -> new long[1])[0]++;
+                    }
+                    if (triple.getObject().isURI()) {
+                        byURI.computeIfAbsent(triple.getObject().getURI(), k -> new long[1])[0]++;
+                    }
+                }
+            } finally {
+                it.close();
+            }
+            logger.info(marker, "Triples of {} counted for {} resources in {}ms.", kbId, byURI.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return byURI;
+        }
+    }
+
+    /**
+     * Labels of the live documents, the id as payload. Read from doc values when there are, stored fields otherwise.
+     */
+    private static final class EntityInputIterator implements InputIterator {
+        private final Iterator<LeafReaderContext> leaves;
+        private final ToLongFunction<String> popularity;
+        private final long minPopularity;
+        private LeafReader leaf;
+        private Bits liveDocs;
+        private BinaryDocValues ids;
+        private BinaryDocValues values;
+        private int doc = -1;
+        private BytesRef label;
+        private BytesRef id;
+        private long weight;
+
+        EntityInputIterator(IndexReader reader, ToLongFunction<String> popularity, long minPopularity) {
+            this.leaves = reader.leaves().iterator();
+            this.popularity = popularity;
+            this.minPopularity = minPopularity;
+        }
+
+        @Override
+        public BytesRef next() throws IOException {
+            while (true) {
+                if (leaf == null || ++doc >= leaf.maxDoc()) {
+                    if (!leaves.hasNext()) {
+                        return null;
+                    }
+                    leaf = leaves.next().reader();
+                    liveDocs = leaf.getLiveDocs();
+                    ids = leaf.getBinaryDocValues(LuceneIndexer.ID_FIELD);
+                    values = leaf.getBinaryDocValues(LuceneIndexer.VALUE_FIELD);
+                    doc = -1;
+                    continue;
+                }
+                if (liveDocs != null && !liveDocs.get(doc)) {
+                    continue;
+                }
+
+                String idStr;
+                String labelStr;
+                if (ids != null && values != null && ids.advanceExact(doc) && values.advanceExact(doc)) {
+                    idStr = ids.binaryValue().utf8ToString();
+                    labelStr = values.binaryValue().utf8ToString();
+                } else {
+                    Document hitDoc = leaf.document(doc);
+                    idStr = hitDoc.get(LuceneIndexer.ID_FIELD);
+                    labelStr = hitDoc.get(LuceneIndexer.VALUE_FIELD);
+                }
+                if (idStr == null || labelStr == null) {
+                    continue;
+                }
+
+                weight = popularity.applyAsLong(idStr);
+                if (weight < minPopularity) {
+                    continue;
+                }
+                weight = Math.min(weight, Integer.MAX_VALUE);
+                id = new BytesRef(idStr);
+                label = new BytesRef(labelStr);
+                return label;
+            }
+        }
+
+        @Override
+        public long weight() {
+            return weight;
+        }
+
+        @Override
+        public BytesRef payload() {
+            return id;
+        }
+
+        @Override
+        public boolean hasPayloads() {
+            return true;
+        }
+
+        @Override
+        public Set<BytesRef> contexts() {
+            return null;
+        }
+
+        @Override
+        public boolean hasContexts() {
+            return false;
+        }
+    }
+}
@@ -27,7 +27,7 @@ package net.stargraph.core.index;
  */
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import net.stargraph.StarGraphException;
+import com.typesafe.config.Config;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.serializer.ObjectSerializer;
 import net.stargraph.data.DataProvider;
@@ -35,7 +35,7 @@ import net.stargraph.data.Indexable;
 import net.stargraph.data.processor.FatalProcessorException;
 import net.stargraph.data.processor.Holder;
 import net.stargraph.data.processor.ProcessorChain;
-import net.stargraph.data.processor.ProcessorException;
+import net.stargraph.model.BuiltInModel;
 import net.stargraph.model.KBId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,7 +43,6 @@ import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import java.io.Serializable;
-import java.util.Iterator;
 import java.util.Objects;
 import java.util.concurrent.*;
 
@@ -59,10 +58,10 @@ public abstract class BaseIndexer implements Indexer {
 
     private ExecutorService loaderExecutor;
     private Future<?> loaderFutureTask;
-    private ProgressWatcher loaderProgress;
+    private volatile ProgressWatcher loaderProgress;
     private DataProvider<?> dataProvider;
     private ProcessorChain processorChain;
-    private boolean loading;
+    private volatile boolean loading;
     private boolean running;
 
     public BaseIndexer(KBId kbId, Stargraph stargraph) {
@@ -117,6 +116,16 @@ public abstract class BaseIndexer implements Indexer {
         doLoad(reset, limit);
     }
 
+    @Override
+    public final boolean isLoading() {
+        return loading;
+    }
+
+    @Override
+    public final ProgressWatcher getLoaderProgress() {
+        return loaderProgress;
+    }
+
     @Override
     public final void flush() {
         logger.info(marker, "Flushing..");
@@ -162,7 +171,21 @@ public abstract class BaseIndexer implements Indexer {
         // Specific implementation detail
     }
 
-    protected void afterLoad() throws InterruptedException {
+    /**
+     * Whether doIndex can be called from several loader threads at once. If so each worker indexes its entries
+     * right after processing them, hence they are no longer indexed in the provider order: implementations must not
+     * depend on it, i.e on a later entry overwriting an earlier one with the same id.
+     */
+    protected boolean isConcurrentWriter() {
+        return false;
+    }
+
+    /**
+     * Called once the load ended, even when it failed or was interrupted.
+     *
+     * @param completed true only if every entry of the provider (up to the limit) went through the pipeline.
+     */
+    protected void afterLoad(boolean completed) throws InterruptedException {
         // Specific implementation detail
     }
 
@@ -183,12 +206,22 @@ public abstract class BaseIndexer implements Indexer {
         boolean logStats = stargraph.getMainConfig().getBoolean("progress-watcher.log-stats");
         this.loaderProgress = new ProgressWatcher(kbId, stargraph.getDataRootDir(), logStats);
         this.dataProvider = stargraph.createDataProvider(kbId);
+        if (processorChain != null) {
+            processorChain.beforeLoad(reset);
+        }
         beforeLoad(reset);
     }
 
-    private void doAfterLoad() throws InterruptedException {
-        logger.debug(marker, ".. after loading.");
-        afterLoad();
+    private void doAfterLoad(boolean completed) throws InterruptedException {
+        logger.debug(marker, ".. after loading, completed: {}", completed);
+        if (processorChain != null) {
+            processorChain.afterLoad();
+        }
+        afterLoad(completed);
+        if (BuiltInModel.ENTITY.modelId.equals(kbId.getModel())) {
+            // Labels may have changed, cached entities are stale now.
+            stargraph.getKBCore(kbId.getId()).invalidateEntityCache();
+        }
     }
 
     private void sink(Holder h) {
@@ -196,38 +229,71 @@ public abstract class BaseIndexer implements Indexer {
     }
 
 
-    private void work(Holder holder) throws ProcessorException {
+    private void work(Holder holder) {
+        if (process(holder)) {
+            // During incremental mode we log every attempt to index.
+            logger.info(marker, "Indexing {}", holder.get());
+            try {
+                doIndex(holder.get(), kbId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error(marker, "Fail to index {}", holder, e);
+            }
+        }
+    }
+
+    /**
+     * Runs the processor chain. Called concurrently by the loader workers.
+     *
+     * @return false when the entry was sunk or failed to be processed.
+     */
+    private boolean process(Holder holder) {
         try {
             if (processorChain != null) {
                 processorChain.run(Objects.requireNonNull(holder));
             }
 
-            if (!holder.isSinkable()) {
-                final Serializable data = holder.get();
-
-                if (this.loading) {
-                    if (loaderProgress.incIndexed() % 500000 == 0) {
-                        logger.info(marker, "{}: {}", loaderProgress.getTotalIndexed(), data);
-                    }
-                } else {
-                    // During incremental mode we log every attempt to index.
-                    logger.info(marker, "Indexing {}", data);
-                }
-
-                doIndex(data, kbId);
-
-            } else {
+            if (holder.isSinkable()) {
                 sink(holder);
+                return false;
             }
+
+            return true;
+
         } catch (FatalProcessorException e) {
             throw e;
+        } catch (Exception e) {
+            logger.error(marker, "Fail to process {}", holder, e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Loader writer stage. Called from a single thread in the provider order, or from every worker in no particular
+     * order when {@link #isConcurrentWriter()}.
+     */
+    private void write(Holder holder) {
+        try {
+            final Serializable data = holder.get();
+            if (loaderProgress.incIndexed() % 500000 == 0) {
+                logger.info(marker, "{}: {}", loaderProgress.getTotalIndexed(), data);
+            }
+            doIndex(data, kbId);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } catch (Exception e) {
-            logger.error(marker, "Fail to process {}", holder, e);
+            logger.error(marker, "Fail to index {}", holder, e);
         }
     }
 
+    private int getLoaderSetting(String path) {
+        // Model configuration overrides the global defaults.
+        Config modelConfig = stargraph.getModelConfig(kbId);
+        return modelConfig.hasPath(path) ? modelConfig.getInt(path) : stargraph.getMainConfig().getInt(path);
+    }
+
     private synchronized void doLoad(boolean reset, long limit) {
         if (loading) {
             throw new IllegalStateException("Loader is already in progress. ");
@@ -244,47 +310,30 @@ public abstract class BaseIndexer implements Indexer {
             this.loaderExecutor = Executors.newSingleThreadExecutor();
         }
 
+        final int configuredWorkers = getLoaderSetting("loader.workers");
+        final int workers = configuredWorkers > 0 ? configuredWorkers : Runtime.getRuntime().availableProcessors();
+        final int queueCapacity = getLoaderSetting("loader.queue-capacity");
+
         loaderFutureTask = loaderExecutor.submit(() -> {
+            boolean completed = false;
             try {
                 doBeforeLoad(reset);
                 loaderProgress.start(true); // now this is always true until we add a resume feature.
                 logger.info(marker, "Loader is running..");
-                Iterator<? extends Holder> iterator = dataProvider.iterator();
-                while (iterator.hasNext()) {
-
-                    if (limit > 0 && loaderProgress.getTotalRead() >= limit) {
-                        logger.info(marker, "Limit set to {} reached.", limit);
-                        break;
-                    }
-
-                    try {
-                        Holder data = iterator.next();
-                        if (Thread.currentThread().isInterrupted()) {
-                            break;
-                        }
-
-                        if (!data.getKBId().equals(kbId)) {
-                            throw new StarGraphException("Can't consume data from '{}" + data.getKBId() + "'");
-                        }
-
-                        work(data); // delegates heavy work
-
-                    } catch (FatalProcessorException e) {
-                        logger.error(marker, "Aborting.", e);
-                        break;
-                    } catch (Exception e) {
-                        logger.error(marker, "Error reading from provider.", e);
-                    } finally {
-                        loaderProgress.incRead();
-                    }
-                }
+                LoaderPipeline pipeline = new LoaderPipeline(kbId, workers, queueCapacity, loaderProgress,
+                        stargraph.getLoaderBudget(), this::process, this::write, isConcurrentWriter());
+                pipeline.run(dataProvider.iterator(), limit);
+                completed = !Thread.currentThread().isInterrupted();
+            } catch (ExecutionException e) {
+                logger.error(marker, "Loader failure.", e.getCause());
+                throw e;
             } catch (Exception e) {
                 logger.error(marker, "Loader failure.", e);
                 throw e;
             } finally {
                 logger.info(marker, "Loader is finishing..");
                 try {
-                    doAfterLoad();
+                    doAfterLoad(completed);
                     loaderProgress.stop();
                     if (loaderProgress.getTotalIndexed() == 0) {
                         logger.warn(marker, "Nothing was loaded!");
@@ -298,6 +347,7 @@ public abstract class BaseIndexer implements Indexer {
                     logger.info(marker, "Loader is done.");
                 }
             }
+            return null;
         });
     }
 
@@ -49,6 +49,16 @@ public interface Indexer {
 
     void awaitLoader(long time, TimeUnit unit) throws InterruptedException, TimeoutException, ExecutionException;
 
+    /**
+     * True from the call to load until the loader is done, including its after load work.
+     */
+    boolean isLoading();
+
+    /**
+     * Progress of the current or last load, null if nothing was loaded yet.
+     */
+    ProgressWatcher getLoaderProgress();
+
     void index(Indexable data) throws InterruptedException;
 
     void flush();
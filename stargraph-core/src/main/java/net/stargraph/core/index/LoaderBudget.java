@@ -0,0 +1,79 @@
+package net.stargraph.core.index;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * CPU and IO permits shared by every loader of a {@link net.stargraph.core.Stargraph} instance.
+ * Loading several models at once splits these budgets instead of each loader assuming the whole box.
+ */
+public final class LoaderBudget {
+    private final int cpuPermits;
+    private final int ioPermits;
+    private final Semaphore cpu;
+    private final Semaphore io;
+
+    /**
+     * @param cpuPermits Entries being processed at the same time, across all loaders.
+     * @param ioPermits Entries being written at the same time, across all loaders.
+     */
+    public LoaderBudget(int cpuPermits, int ioPermits) {
+        if (cpuPermits <= 0 || ioPermits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive.");
+        }
+        this.cpuPermits = cpuPermits;
+        this.ioPermits = ioPermits;
+        this.cpu = new Semaphore(cpuPermits);
+        this.io = new Semaphore(ioPermits);
+    }
+
+    public void acquireCPU() throws InterruptedException {
+        cpu.acquire();
+    }
+
+    public void releaseCPU() {
+        cpu.release();
+    }
+
+    public void acquireIO() throws InterruptedException {
+        io.acquire();
+    }
+
+    public void releaseIO() {
+        io.release();
+    }
+
+    @Override
+    public String toString() {
+        return "LoaderBudget{" +
+                "cpu=" + cpu.availablePermits() + "/" + cpuPermits +
+                ", io=" + io.availablePermits() + "/" + ioPermits +
+                '}';
+    }
+}
@@ -0,0 +1,295 @@
+package net.stargraph.core.index;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.StarGraphException;
+import net.stargraph.data.processor.FatalProcessorException;
+import net.stargraph.data.processor.Holder;
+import net.stargraph.model.KBId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Staged loader: the calling thread reads from the provider, a pool of workers runs the processors and a single
+ * writer indexes. Stages are connected by bounded queues so a slow stage holds back the previous one.
+ * The writer restores the provider order, hence the outcome of a load does not depend on the number of workers.
+ * With concurrent writes there is no writer stage, each worker indexes its entries itself and the order is lost.
+ */
+final class LoaderPipeline {
+    private static final Entry END = new Entry(-1, null);
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("index");
+
+    private KBId kbId;
+    private int workers;
+    private int queueCapacity;
+    private ProgressWatcher progress;
+    private LoaderBudget budget;
+    private Predicate<Holder> processor;
+    private Consumer<Holder> writer;
+    private boolean concurrentWrites;
+    private Semaphore window;
+    private AtomicReference<FatalProcessorException> fatal;
+
+    /**
+     * @param processor Runs the processor chain, returning false when the entry should not be indexed.
+     * @param writer Indexes an entry. Called from a single thread in reading order, unless concurrentWrites.
+     * @param concurrentWrites Lets each worker call the writer right after processing, concurrently and in no
+     *                         particular order.
+     */
+    LoaderPipeline(KBId kbId, int workers, int queueCapacity, ProgressWatcher progress, LoaderBudget budget,
+                   Predicate<Holder> processor, Consumer<Holder> writer, boolean concurrentWrites) {
+        if (workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("workers and queue capacity must be positive.");
+        }
+        this.kbId = Objects.requireNonNull(kbId);
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.progress = Objects.requireNonNull(progress);
+        this.budget = Objects.requireNonNull(budget);
+        this.processor = Objects.requireNonNull(processor);
+        this.writer = Objects.requireNonNull(writer);
+        this.concurrentWrites = concurrentWrites;
+        // Bounds the entries in flight, including those parked by the writer waiting for a slower predecessor.
+        this.window = new Semaphore(2 * queueCapacity + workers);
+        this.fatal = new AtomicReference<>();
+    }
+
+    void run(Iterator<? extends Holder> iterator, long limit) throws InterruptedException, ExecutionException {
+        BlockingQueue<Entry> processQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Entry> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        progress.watchQueue("process", processQueue);
+        progress.watchQueue("write", writeQueue);
+
+        logger.info(marker, "Starting {} processor workers for {}, concurrent writes: {}", workers, kbId, concurrentWrites);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrentWrites ? workers : workers + 1,
+                createThreadFactory());
+
+        try {
+            CountDownLatch workersDone = new CountDownLatch(workers);
+            List<Future<?>> stages = new ArrayList<>(workers + 1);
+            for (int i = 0; i < workers; i++) {
+                stages.add(executor.submit(() -> {
+                    try {
+                        process(processQueue, writeQueue);
+                    } finally {
+                        workersDone.countDown();
+                    }
+                    return null;
+                }));
+            }
+            Future<?> writerTask = concurrentWrites ? null : executor.submit(() -> {
+                write(writeQueue);
+                return null;
+            });
+            if (writerTask != null) {
+                stages.add(writerTask);
+            }
+
+            read(iterator, limit, processQueue, stages);
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            for (int i = 0; i < workers; i++) {
+                put(processQueue, END, stages);
+            }
+            while (!workersDone.await(1, TimeUnit.SECONDS)) {
+                checkStages(stages); // workers would block forever on a dead writer.
+            }
+            if (writerTask != null) {
+                put(writeQueue, END, stages);
+                writerTask.get();
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (fatal.get() != null) {
+            throw new ExecutionException("Aborted.", fatal.get());
+        }
+    }
+
+    /**
+     * Stops with the first stage that died, nobody would give back its permits or drain its queue otherwise.
+     */
+    private void read(Iterator<? extends Holder> iterator, long limit, BlockingQueue<Entry> processQueue,
+                      List<Future<?>> stages) throws ExecutionException {
+        long seq = 0;
+        while (iterator.hasNext()) {
+
+            if (limit > 0 && progress.getTotalRead() >= limit) {
+                logger.info(marker, "Limit set to {} reached.", limit);
+                break;
+            }
+
+            if (fatal.get() != null) {
+                logger.error(marker, "Aborting.", fatal.get());
+                break;
+            }
+
+            try {
+                Holder data = iterator.next();
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+
+                if (!data.getKBId().equals(kbId)) {
+                    throw new StarGraphException("Can't consume data from '{}" + data.getKBId() + "'");
+                }
+
+                while (!window.tryAcquire(1, TimeUnit.SECONDS)) {
+                    checkStages(stages);
+                }
+                put(processQueue, new Entry(seq++, data), stages);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error(marker, "Error reading from provider.", e);
+            } finally {
+                progress.incRead();
+            }
+        }
+    }
+
+    private void put(BlockingQueue<Entry> queue, Entry entry, List<Future<?>> stages)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(entry, 1, TimeUnit.SECONDS)) {
+            checkStages(stages);
+        }
+    }
+
+    /**
+     * Rethrows the failure of a dead stage, an Error included. Stages done after END just return.
+     */
+    private static void checkStages(List<Future<?>> stages) throws InterruptedException, ExecutionException {
+        for (Future<?> stage : stages) {
+            if (stage.isDone()) {
+                stage.get();
+            }
+        }
+    }
+
+    private void process(BlockingQueue<Entry> processQueue, BlockingQueue<Entry> writeQueue) throws InterruptedException {
+        while (true) {
+            Entry entry = processQueue.take();
+            if (entry == END) {
+                return;
+            }
+
+            budget.acquireCPU();
+            try {
+                // When aborting the remaining entries are only drained.
+                entry.index = fatal.get() == null && processor.test(entry.holder);
+            } catch (FatalProcessorException e) {
+                fatal.compareAndSet(null, e);
+            } finally {
+                budget.releaseCPU();
+                progress.incProcessed();
+            }
+
+            if (concurrentWrites) {
+                index(entry);
+            } else {
+                writeQueue.put(entry);
+            }
+        }
+    }
+
+    private void write(BlockingQueue<Entry> writeQueue) throws InterruptedException {
+        Map<Long, Entry> parked = new HashMap<>();
+        long next = 0;
+
+        while (true) {
+            Entry entry = writeQueue.take();
+            if (entry == END) {
+                return;
+            }
+
+            parked.put(entry.seq, entry);
+            while ((entry = parked.remove(next)) != null) {
+                index(entry);
+                next++;
+            }
+        }
+    }
+
+    private void index(Entry entry) throws InterruptedException {
+        if (entry.index) {
+            budget.acquireIO();
+            try {
+                writer.accept(entry.holder);
+            } finally {
+                budget.releaseIO();
+            }
+        }
+        window.release();
+    }
+
+    private ThreadFactory createThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        String prefix = String.format("loader-%s-%s-", kbId.getId(), kbId.getModel());
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static final class Entry {
+        private final long seq;
+        private final Holder holder;
+        private boolean index;
+
+        Entry(long seq, Holder holder) {
+            this.seq = seq;
+            this.holder = holder;
+        }
+    }
+}
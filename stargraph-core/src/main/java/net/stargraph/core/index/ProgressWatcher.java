@@ -37,7 +37,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.nio.file.Paths;
-import java.util.Objects;
+import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -48,7 +48,9 @@ public final class ProgressWatcher {
     private Logger logger = LoggerFactory.getLogger(getClass());
     private Marker marker = MarkerFactory.getMarker("watcher");
     private AtomicLong read = new AtomicLong(0);
+    private AtomicLong processed = new AtomicLong(0);
     private AtomicLong indexed = new AtomicLong(0);
+    private Map<String, Collection<?>> queues = Collections.synchronizedMap(new LinkedHashMap<>());
     private long startTime;
     private long stopTime;
     private long elapsedTime;
@@ -68,10 +70,21 @@ public final class ProgressWatcher {
         return read.incrementAndGet();
     }
 
+    public long incProcessed() {
+        return processed.incrementAndGet();
+    }
+
     public long incIndexed() {
         return indexed.incrementAndGet();
     }
 
+    /**
+     * Reports the backlog of the given stage queue along with the throughput.
+     */
+    public void watchQueue(String stage, Collection<?> queue) {
+        queues.put(Objects.requireNonNull(stage), Objects.requireNonNull(queue));
+    }
+
     public long getTotalIndexed() {
         return indexed.get();
     }
@@ -80,6 +93,10 @@ public final class ProgressWatcher {
         return read.get();
     }
 
+    public long getTotalProcessed() {
+        return processed.get();
+    }
+
     public long getElapsedTime() {
         return elapsedTime;
     }
@@ -89,6 +106,7 @@ public final class ProgressWatcher {
             stopTime = System.nanoTime() / 1000_000;
             elapsedTime = stopTime - startTime;
             executor.shutdownNow();
+            queues.clear();
             logStats();
             logger.info(marker, "{}", getReportMsg());
         }
@@ -103,6 +121,7 @@ public final class ProgressWatcher {
 
         if (reset) {
             read.set(0);
+            processed.set(0);
             indexed.set(0);
             startTime = System.nanoTime() / 1000_000;
             stopTime = 0;
@@ -112,8 +131,11 @@ public final class ProgressWatcher {
         executor.scheduleAtFixedRate(() -> {
             elapsedTime = (System.nanoTime() / 1000_000) - startTime;
             if (elapsedTime > 0) {
-                double entriesPerSec = 1000 * getTotalRead() / elapsedTime;
-                logger.info(marker, "{} entries/s. {}", entriesPerSec, getReportMsg());
+                logger.info(marker, "read {} entries/s, processed {} entries/s, indexed {} entries/s. {}",
+                        rate(getTotalRead()), rate(getTotalProcessed()), rate(getTotalIndexed()), getReportMsg());
+                if (!queues.isEmpty()) {
+                    logger.info(marker, "Queues: {}", getQueuesMsg());
+                }
                 logger.info(marker, "Memory: {}", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage());
             }
         }, 10, 10, TimeUnit.SECONDS);
@@ -123,11 +145,24 @@ public final class ProgressWatcher {
 
     public String getReportMsg() {
         long elapsedTime = getElapsedTime();
-        return String.format("Read %d entries in %d min, %d sec. Indexed %d entries.",
+        return String.format("Read %d entries in %d min, %d sec. Processed %d entries. Indexed %d entries.",
                 getTotalRead(),
                 TimeUnit.MILLISECONDS.toMinutes(elapsedTime),
                 TimeUnit.MILLISECONDS.toSeconds(elapsedTime) -
-                        TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(elapsedTime)), getTotalIndexed());
+                        TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(elapsedTime)),
+                getTotalProcessed(), getTotalIndexed());
+    }
+
+    private String getQueuesMsg() {
+        StringJoiner joiner = new StringJoiner(", ");
+        synchronized (queues) {
+            queues.forEach((stage, queue) -> joiner.add(String.format("%s=%d", stage, queue.size())));
+        }
+        return joiner.toString();
+    }
+
+    private double rate(long entries) {
+        return elapsedTime > 0 ? 1000.0 * entries / elapsedTime : 0;
     }
 
     private void logStats() {
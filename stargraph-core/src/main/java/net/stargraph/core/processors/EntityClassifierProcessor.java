@@ -72,6 +72,11 @@ public final class EntityClassifierProcessor extends BaseProcessor {
         return name;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /**
      * Attention: Assumes the usage is considered after this processor has being applied.
      */
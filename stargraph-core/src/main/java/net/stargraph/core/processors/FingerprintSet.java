@@ -0,0 +1,232 @@
+package net.stargraph.core.processors;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.StarGraphException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Open-addressing hash set of 128-bit fingerprints living outside of the heap.
+ * <p>
+ * Slots are kept in direct buffers while the table fits in <code>maxMemory</code>, beyond that the table
+ * is memory-mapped from a temporary file in <code>spillDir</code>. The table doubles when it is 70% full.
+ * Not thread-safe.
+ */
+public final class FingerprintSet implements Closeable {
+    private static final int SLOT_BYTES = 16;
+    private static final int SEGMENT_SLOTS_SHIFT = 26; // 1GB per segment.
+    private static final long SEGMENT_SLOTS_MASK = (1L << SEGMENT_SLOTS_SHIFT) - 1;
+    private static final double MAX_LOAD = 0.7;
+
+    private final long initialCapacity;
+    private final long maxMemory;
+    private final File spillDir;
+
+    private long capacity;
+    private long mask;
+    private long size;
+    private ByteBuffer[] segments;
+    private File spillFile;
+
+    /**
+     * @param expectedEntries Initial sizing hint.
+     * @param maxMemory Maximum size in bytes of an in-memory table.
+     * @param spillDir Where larger tables are mapped from, null means the default temporary directory.
+     */
+    public FingerprintSet(long expectedEntries, long maxMemory, File spillDir) {
+        this.initialCapacity = capacityFor(Math.max(16, expectedEntries));
+        this.maxMemory = maxMemory;
+        this.spillDir = spillDir;
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Adds the fingerprint taken from the first 16 bytes of the given hash.
+     *
+     * @return true if it was not present.
+     */
+    public boolean add(byte[] hash) {
+        return add(readLong(hash, 0), readLong(hash, 8));
+    }
+
+    /**
+     * @return true if it was not present.
+     */
+    public boolean add(long hi, long lo) {
+        if (hi == 0 && lo == 0) {
+            lo = 1; // All zeros flags an empty slot.
+        }
+
+        if (size + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+
+        if (insert(segments, mask, hi, lo)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    public void clear() {
+        release();
+        allocate(initialCapacity);
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    private static boolean insert(ByteBuffer[] segments, long mask, long hi, long lo) {
+        long slot = mix(hi ^ lo) & mask;
+        while (true) {
+            ByteBuffer segment = segments[(int) (slot >>> SEGMENT_SLOTS_SHIFT)];
+            int offset = (int) (slot & SEGMENT_SLOTS_MASK) * SLOT_BYTES;
+            long h = segment.getLong(offset);
+            long l = segment.getLong(offset + 8);
+
+            if (h == 0 && l == 0) {
+                segment.putLong(offset, hi);
+                segment.putLong(offset + 8, lo);
+                return true;
+            }
+
+            if (h == hi && l == lo) {
+                return false;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        ByteBuffer[] oldSegments = segments;
+        long oldCapacity = capacity;
+        File oldSpillFile = spillFile;
+
+        allocate(oldCapacity << 1);
+
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            ByteBuffer segment = oldSegments[(int) (slot >>> SEGMENT_SLOTS_SHIFT)];
+            int offset = (int) (slot & SEGMENT_SLOTS_MASK) * SLOT_BYTES;
+            long h = segment.getLong(offset);
+            long l = segment.getLong(offset + 8);
+            if (h != 0 || l != 0) {
+                insert(segments, mask, h, l);
+            }
+        }
+
+        deleteSpillFile(oldSpillFile);
+    }
+
+    private void allocate(long newCapacity) {
+        long bytes = newCapacity * SLOT_BYTES;
+        long segmentSlots = Math.min(newCapacity, 1L << SEGMENT_SLOTS_SHIFT);
+        int segmentCount = (int) (newCapacity / segmentSlots);
+        int segmentBytes = (int) (segmentSlots * SLOT_BYTES);
+        ByteBuffer[] newSegments = new ByteBuffer[segmentCount];
+
+        if (bytes <= maxMemory) {
+            for (int i = 0; i < segmentCount; i++) {
+                newSegments[i] = ByteBuffer.allocateDirect(segmentBytes);
+            }
+            this.spillFile = null;
+        } else {
+            try {
+                File file = File.createTempFile("fingerprints-", ".bin", spillDir);
+                file.deleteOnExit();
+                // A fresh sparse file reads as zeros, i.e all slots empty.
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+                    raf.setLength(bytes);
+                    for (int i = 0; i < segmentCount; i++) {
+                        newSegments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentBytes, segmentBytes);
+                    }
+                }
+                this.spillFile = file;
+            } catch (IOException e) {
+                throw new StarGraphException("Fail to spill fingerprints to disk.", e);
+            }
+        }
+
+        this.segments = newSegments;
+        this.capacity = newCapacity;
+        this.mask = newCapacity - 1;
+    }
+
+    private void release() {
+        segments = null;
+        size = 0;
+        deleteSpillFile(spillFile);
+        spillFile = null;
+    }
+
+    private static void deleteSpillFile(File file) {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static long capacityFor(long entries) {
+        long slots = (long) Math.ceil(entries / MAX_LOAD);
+        return Long.highestOneBit(slots - 1) << 1;
+    }
+
+    private static long readLong(byte[] bytes, int from) {
+        long value = 0;
+        for (int i = from; i < from + 8; i++) {
+            value = (value << 8) | (i < bytes.length ? bytes[i] & 0xFF : 0);
+        }
+        return value;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
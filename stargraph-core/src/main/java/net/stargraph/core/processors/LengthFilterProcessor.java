@@ -98,6 +98,11 @@ public final class LengthFilterProcessor extends BaseProcessor {
         return name;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     private static boolean inRange(int value, int min, int max) {
         return min <= 0 || max <= 0 || value >= min && value <= max;
     }
@@ -95,6 +95,11 @@ public class RegExFilterProcessor extends BaseProcessor {
         return name;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     private boolean isExcluded(List<Pattern> exclusions, String str) {
         return exclusions.parallelStream().anyMatch(pattern -> pattern.matcher(str).matches());
     }
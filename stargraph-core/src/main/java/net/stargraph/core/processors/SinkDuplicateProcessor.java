@@ -34,15 +34,37 @@ import net.stargraph.data.processor.Hashable;
 import net.stargraph.data.processor.Holder;
 import net.stargraph.data.processor.ProcessorException;
 
+import java.io.File;
+
+/**
+ * Sinks entries already seen, identified by {@link Hashable#hash()}.
+ * <p>
+ * The exact mode remembers a fingerprint of every entry in a {@link FingerprintSet}. The bloom mode takes constant
+ * memory but wrongly sinks a fraction (fpp) of the unique entries.
+ */
 public final class SinkDuplicateProcessor extends BaseProcessor {
     public static String name = "sink-duplicate";
+    private boolean exact;
+    private long expectedEntries;
+    private double fpp;
+    private FingerprintSet fingerprints;
     private BloomFilter<byte[]> bloomFilter;
+    private long checked;
+    private long sunk;
 
     public SinkDuplicateProcessor(Config config) {
         super(config);
-        //TODO: should be in configuration, assuming worst case scenario with acceptable loss.
-        //In the near future we must treat the losses.
-        bloomFilter = BloomFilter.create(Funnels.byteArrayFunnel(), 100000000, 0.02);
+        this.exact = getConfig().getString("mode").equalsIgnoreCase("exact");
+        this.expectedEntries = getConfig().getLong("expected-entries");
+
+        if (exact) {
+            long maxMemory = getConfig().getBytes("max-memory");
+            File spillDir = getConfig().getIsNull("spill-dir") ? null : new File(getConfig().getString("spill-dir"));
+            this.fingerprints = new FingerprintSet(expectedEntries, maxMemory, spillDir);
+        } else {
+            this.fpp = getConfig().getDouble("fpp");
+            this.bloomFilter = createBloomFilter();
+        }
     }
 
     @Override
@@ -55,10 +77,58 @@ public final class SinkDuplicateProcessor extends BaseProcessor {
         return name;
     }
 
+    @Override
+    public void beforeLoad(boolean reset) {
+        if (reset) {
+            // Entries seen before are gone from the index.
+            if (exact) {
+                fingerprints.clear();
+            } else {
+                bloomFilter = createBloomFilter();
+            }
+        }
+        checked = 0;
+        sunk = 0;
+    }
+
+    @Override
+    public void afterLoad() {
+        if (exact) {
+            logger.info(marker, "Sunk {} duplicates out of {} entries. {} fingerprints, {} slots{}.",
+                    sunk, checked, fingerprints.size(), fingerprints.capacity(), fingerprints.isSpilled() ? " on disk" : "");
+        } else {
+            logger.info(marker, "Sunk {} duplicates out of {} entries, ~{} may be false positives.",
+                    sunk, checked, Math.round(bloomFilter.expectedFpp() * (checked - sunk)));
+        }
+    }
+
+    /**
+     * Number of duplicates sunk since the last load started.
+     */
+    public long getSunkCount() {
+        return sunk;
+    }
+
+    private BloomFilter<byte[]> createBloomFilter() {
+        return BloomFilter.create(Funnels.byteArrayFunnel(), expectedEntries, fpp);
+    }
+
     private void checkFilter(Holder holder) {
         Hashable o = (Hashable) holder.get();
         byte[] hashId = o.hash();
-        holder.setSink(bloomFilter.mightContain(hashId));
-        bloomFilter.put(hashId);
+        boolean duplicate;
+
+        if (exact) {
+            duplicate = !fingerprints.add(hashId);
+        } else {
+            duplicate = bloomFilter.mightContain(hashId);
+            bloomFilter.put(hashId);
+        }
+
+        checked++;
+        if (duplicate) {
+            sunk++;
+        }
+        holder.setSink(duplicate);
     }
 }
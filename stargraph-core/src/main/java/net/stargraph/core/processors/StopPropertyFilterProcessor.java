@@ -63,6 +63,11 @@ public final class StopPropertyFilterProcessor extends BaseProcessor {
         return name;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     private boolean isExcluded(String str) {
         return exclusions.parallelStream().anyMatch(pattern -> pattern.matcher(str).matches());
     }
@@ -46,7 +46,13 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import static net.stargraph.query.InteractionMode.*;
@@ -63,6 +69,9 @@ public final class QueryEngine {
     private InteractionModeSelector modeSelector;
     private Namespace namespace;
     private Language language;
+    private ExecutorService executor;
+    private long timeoutMillis;
+    private RelatednessCache relatednessCache;
 
     public QueryEngine(String dbId, Stargraph stargraph) {
         this.dbId = Objects.requireNonNull(dbId);
@@ -73,6 +82,9 @@ public final class QueryEngine {
         this.namespace = core.getNamespace();
         this.language = core.getLanguage();
         this.modeSelector = new InteractionModeSelector(stargraph.getMainConfig(), language);
+        this.executor = stargraph.getQueryExecutor();
+        this.timeoutMillis = stargraph.getMainConfig().getDuration("query.timeout", TimeUnit.MILLISECONDS);
+        this.relatednessCache = stargraph.getRelatednessCache();
     }
 
     public QueryResponse query(String query) {
@@ -111,6 +123,34 @@ public final class QueryEngine {
         }
     }
 
+    /**
+     * Replays a log of past questions, one per line, so the scores they need are cached before real traffic.
+     * Lines starting with '#' are skipped, failing questions are only logged.
+     *
+     * @return Number of questions answered.
+     */
+    public int prewarm(Path queryLog) throws IOException {
+        int answered = 0;
+        try (BufferedReader reader = Files.newBufferedReader(queryLog, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    if (!(query(line) instanceof NoResponse)) {
+                        answered++;
+                    }
+                } catch (StarGraphException e) {
+                    logger.warn(marker, "Prewarm query failed '{}'", line);
+                }
+            }
+        }
+        logger.info(marker, "Prewarmed {} answered questions from '{}', {}", answered, queryLog, relatednessCache);
+        return answered;
+    }
+
     private QueryResponse sparqlQuery(String userQuery) {
         Map<String, List<LabeledEntity>> vars = graphSearcher.select(userQuery);
         if (!vars.isEmpty()) {
@@ -128,10 +168,9 @@ public final class QueryEngine {
         QueryPlanPatterns triplePatterns = queryBuilder.getTriplePatterns();
         List<DataModelBinding> bindings = queryBuilder.getBindings();
 
-        triplePatterns.forEach(triplePattern -> {
-            logger.debug(marker, "Resolving {}", triplePattern);
-            resolve(asTriple(triplePattern, bindings), queryBuilder);
-        });
+        List<Triple> triples = new ArrayList<>();
+        triplePatterns.forEach(triplePattern -> triples.add(asTriple(triplePattern, bindings)));
+        resolve(triples, queryBuilder);
 
         String sparqlQueryStr = queryBuilder.build();
 
@@ -230,17 +269,61 @@ public final class QueryEngine {
         return new NoResponse(NLI, userQuery);
     }
 
-    private void resolve(Triple triple, SPARQLQueryBuilder builder) {
-        if (triple.p.getModelType() != DataModelType.TYPE) {
-            // if predicate is not a type assume: I (C|P) V pattern
-            InstanceEntity pivot = resolvePivot(triple.s, builder);
-            pivot = pivot != null ? pivot : resolvePivot(triple.o, builder);
-            resolvePredicate(pivot, triple.p, builder);
+    /**
+     * Resolves the triples concurrently. Each pivot is searched once, the predicates depending on it right after.
+     * Searches for the same binding keep the triple order, so the outcome is the same as resolving one by one.
+     */
+    private void resolve(List<Triple> triples, SPARQLQueryBuilder builder) {
+        Map<DataModelBinding, CompletableFuture<InstanceEntity>> pivots = new IdentityHashMap<>();
+        Map<DataModelBinding, CompletableFuture<Void>> resolutions = new IdentityHashMap<>();
+
+        for (Triple triple : triples) {
+            logger.debug(marker, "Resolving {}", triple);
+            if (triple.p.getModelType() != DataModelType.TYPE) {
+                // if predicate is not a type assume: I (C|P) V pattern
+                DataModelBinding pivotBinding = triple.s.getModelType() == DataModelType.INSTANCE ? triple.s :
+                        triple.o.getModelType() == DataModelType.INSTANCE ? triple.o : null;
+
+                CompletableFuture<InstanceEntity> pivot = pivotBinding == null ?
+                        CompletableFuture.completedFuture(null) :
+                        pivots.computeIfAbsent(pivotBinding,
+                                b -> CompletableFuture.supplyAsync(() -> resolvePivot(b, builder), executor));
+
+                if ((triple.p.getModelType() == DataModelType.CLASS
+                        || triple.p.getModelType() == DataModelType.PROPERTY) && !resolutions.containsKey(triple.p)) {
+                    resolutions.put(triple.p, pivot.thenAcceptAsync(p -> resolvePredicate(p, triple.p, builder), executor));
+                }
+            }
+            else {
+                // Probably is: V T C
+                DataModelBinding binding = triple.s.getModelType() == DataModelType.VARIABLE ? triple.o : triple.s;
+                if (binding.getModelType() == DataModelType.CLASS) {
+                    CompletableFuture<Void> previous = resolutions.get(binding);
+                    Runnable task = () -> resolveClass(binding, builder);
+                    resolutions.put(binding, previous == null ?
+                            CompletableFuture.runAsync(task, executor) : previous.thenRunAsync(task, executor));
+                }
+            }
         }
-        else {
-            // Probably is: V T C
-            DataModelBinding binding = triple.s.getModelType() == DataModelType.VARIABLE ? triple.o : triple.s;
-            resolveClass(binding, builder);
+
+        List<CompletableFuture<?>> all = new ArrayList<>(pivots.values());
+        all.addAll(resolutions.values());
+        await(all);
+    }
+
+    private void await(List<CompletableFuture<?>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new StarGraphException(String.format("Query resolution exceeded %dms.", timeoutMillis));
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new StarGraphException("Query resolution interrupted.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new StarGraphException("Query resolution failed.", e.getCause());
         }
     }
 
@@ -248,9 +331,9 @@ public final class QueryEngine {
         if (binding.getModelType() == DataModelType.CLASS) {
 
             ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(binding.getTerm());
-            ModifiableRankParams rankParams = ParamsBuilder.word2vec();
+            ModifiableRankParams rankParams = ParamsBuilder.word2vec().limit(3);
             Scores scores = entitySearcher.classSearch(searchParams, rankParams);
-            builder.add(binding, scores.stream().limit(3).collect(Collectors.toList()));
+            builder.add(binding, scores);
         }
     }
 
@@ -259,9 +342,9 @@ public final class QueryEngine {
                 || binding.getModelType() == DataModelType.PROPERTY) && !builder.isResolved(binding)) {
 
             ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(binding.getTerm());
-            ModifiableRankParams rankParams = ParamsBuilder.word2vec();
+            ModifiableRankParams rankParams = ParamsBuilder.word2vec().limit(6);
             Scores scores = entitySearcher.pivotedSearch(pivot, searchParams, rankParams);
-            builder.add(binding, scores.stream().limit(6).collect(Collectors.toList()));
+            builder.add(binding, scores);
         }
     }
 
@@ -274,7 +357,7 @@ public final class QueryEngine {
         if (binding.getModelType() == DataModelType.INSTANCE) {
 
             ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(binding.getTerm());
-            ModifiableRankParams rankParams = ParamsBuilder.levenshtein(); // threshold defaults to auto
+            ModifiableRankParams rankParams = ParamsBuilder.levenshtein().limit(1); // threshold defaults to auto
             Scores scores = entitySearcher.instanceSearch(searchParams, rankParams);
             InstanceEntity instance = (InstanceEntity) scores.get(0).getEntry();
             builder.add(binding, Collections.singletonList(scores.get(0)));
@@ -286,7 +369,7 @@ public final class QueryEngine {
     private InstanceEntity resolveInstance(String instanceTerm) {
 
         ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(instanceTerm);
-        ModifiableRankParams rankParams = ParamsBuilder.levenshtein(); // threshold defaults to auto
+        ModifiableRankParams rankParams = ParamsBuilder.levenshtein().limit(1); // threshold defaults to auto
         Scores scores = entitySearcher.instanceSearch(searchParams, rankParams);
         return (InstanceEntity) scores.get(0).getEntry();
     }
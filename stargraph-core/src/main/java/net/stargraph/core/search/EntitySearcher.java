@@ -26,6 +26,7 @@ package net.stargraph.core.search;
  * ==========================License-End===============================
  */
 
+import com.google.common.cache.Cache;
 import net.stargraph.core.KBCore;
 import net.stargraph.core.Namespace;
 import net.stargraph.core.Stargraph;
@@ -39,9 +40,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class EntitySearcher {
@@ -57,18 +56,64 @@ public class EntitySearcher {
     }
 
     public LabeledEntity getEntity(String dbId, String id) {
-        List<LabeledEntity> res = getEntities(dbId, Collections.singletonList(id));
-        if (res != null && !res.isEmpty()) {
-            return res.get(0);
+        return getEntitiesById(dbId, Collections.singletonList(id)).get(id);
+    }
+
+    /**
+     * Resolves all distinct ids with as few requests as possible, serving from the KB entity cache first.
+     *
+     * @return Found entities keyed by the requested id. Ids not found are absent.
+     */
+    public Map<String, LabeledEntity> getEntitiesById(String dbId, Collection<String> ids) {
+        KBCore core = stargraph.getKBCore(dbId);
+        Namespace ns = core.getNamespace();
+        Cache<String, LabeledEntity> cache = core.getEntityCache();
+
+        Map<String, String> shrunkIds = new LinkedHashMap<>();
+        Map<String, LabeledEntity> resolved = new HashMap<>();
+        Set<String> pending = new LinkedHashSet<>();
+
+        for (String id : ids) {
+            String shrunkId = shrunkIds.computeIfAbsent(id, ns::shrinkURI);
+            LabeledEntity entity = cache.getIfPresent(shrunkId);
+            if (entity != null) {
+                resolved.put(shrunkId, entity);
+            } else {
+                pending.add(shrunkId);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            List<String> pendingList = new ArrayList<>(pending);
+            int batchSize = Math.max(1, core.getEntityBatchSize());
+            for (int i = 0; i < pendingList.size(); i += batchSize) {
+                List<String> batch = pendingList.subList(i, Math.min(pendingList.size(), i + batchSize));
+                for (LabeledEntity entity : getEntities(dbId, batch)) {
+                    resolved.put(entity.getId(), entity);
+                    cache.put(entity.getId(), entity);
+                }
+            }
         }
-        return null;
+
+        logger.debug(marker, "Resolved {} of {} distinct ids, {} fetched from the search engine",
+                resolved.size(), shrunkIds.size(), pending.size());
+
+        Map<String, LabeledEntity> result = new LinkedHashMap<>();
+        shrunkIds.forEach((id, shrunkId) -> {
+            LabeledEntity entity = resolved.get(shrunkId);
+            if (entity != null) {
+                result.put(id, entity);
+            }
+        });
+
+        return result;
     }
 
     public List<LabeledEntity> getEntities(String dbId, List<String> ids) {
         ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).model(BuiltInModel.ENTITY);
         KBCore core = stargraph.getKBCore(dbId);
 
-        logger.info(marker, "Fetching ids={}", ids);
+        logger.debug(marker, "Fetching {} ids", ids.size());
         Namespace ns = core.getNamespace();
         List<String> idList = ids.stream().map(ns::shrinkURI).collect(Collectors.toList());
 
@@ -77,14 +122,32 @@ public class EntitySearcher {
         Searcher searcher = core.getSearcher(searchParams.getKbId().getModel());
 
         // Fetch initial candidates from the search engine
-        Scores scores = searcher.search(holder);
+        Scores scores = searcher.search(holder).getScores();
 
         return scores.stream().map(s -> (LabeledEntity)s.getEntry()).collect(Collectors.toList());
     }
 
+    /**
+     * Whether the entity model of this KB can answer {@link #suggest(String, String, int)}.
+     */
+    public boolean supportsSuggest(String dbId) {
+        KBCore core = stargraph.getKBCore(dbId);
+        return core.getSearcher(BuiltInModel.ENTITY.modelId).supportsSuggest();
+    }
+
+    /**
+     * Entities whose label starts with the prefix, most popular first.
+     */
+    public Scores suggest(String dbId, String prefix, int limit) {
+        KBCore core = stargraph.getKBCore(dbId);
+        Searcher searcher = core.getSearcher(BuiltInModel.ENTITY.modelId);
+        return searcher.suggest(prefix, limit);
+    }
+
     public Scores classSearch(ModifiableSearchParams searchParams, ModifiableRankParams rankParams) {
         searchParams.model(BuiltInModel.FACT);
         KBCore core = stargraph.getKBCore(searchParams.getKbId().getId());
+        limitCandidates(core, searchParams, "classes");
 
         if (rankParams instanceof ModifiableIndraParams) {
             core.configureDistributionalParams((ModifiableIndraParams) rankParams);
@@ -95,24 +158,27 @@ public class EntitySearcher {
         Searcher searcher = core.getSearcher(searchParams.getKbId().getModel());
 
         // Fetch initial candidates from the search engine
-        Scores scores = searcher.search(holder);
+        Scores scores = searcher.search(holder).getScores();
 
-        List<Score> classes2Score = scores.stream()
-                .map(s -> new Score(((Fact)s.getEntry()).getObject(), s.getValue())).collect(Collectors.toList());
+        Scores classes2Score = new Scores(scores.size());
+        for (int i = 0; i < scores.size(); i++) {
+            classes2Score.add(((Fact) scores.getEntry(i)).getObject(), scores.getValue(i));
+        }
         // Re-Rank
-        return Rankers.apply(new Scores(classes2Score), rankParams, searchParams.getSearchTerm());
+        return Rankers.apply(classes2Score, rankParams, searchParams.getSearchTerm());
     }
 
     public Scores instanceSearch(ModifiableSearchParams searchParams, ModifiableRankParams rankParams) {
         searchParams.model(BuiltInModel.ENTITY);
         KBCore core = stargraph.getKBCore(searchParams.getKbId().getId());
+        limitCandidates(core, searchParams, "instances");
 
         SearchQueryGenerator searchQueryGenerator = core.getSearchQueryGenerator(searchParams.getKbId().getModel());
         SearchQueryHolder holder = searchQueryGenerator.findEntityInstances(searchParams, FUZZINESS);
         Searcher searcher = core.getSearcher(searchParams.getKbId().getModel());
 
         // Fetch initial candidates from the search engine
-        Scores scores = searcher.search(holder);
+        Scores scores = searcher.search(holder).getScores();
         // Re-Rank
         return Rankers.apply(scores, rankParams, searchParams.getSearchTerm());
     }
@@ -120,6 +186,7 @@ public class EntitySearcher {
     public Scores propertySearch(ModifiableSearchParams searchParams, ModifiableRankParams rankParams) {
         searchParams.model(BuiltInModel.PROPERTY);
         KBCore core = stargraph.getKBCore(searchParams.getKbId().getId());
+        limitCandidates(core, searchParams, "properties");
 
         if (rankParams instanceof ModifiableIndraParams) {
             core.configureDistributionalParams((ModifiableIndraParams) rankParams);
@@ -130,7 +197,7 @@ public class EntitySearcher {
         Searcher searcher = core.getSearcher(searchParams.getKbId().getModel());
 
         // Fetch initial candidates from the search engine
-        Scores scores = searcher.search(holder);
+        Scores scores = searcher.search(holder).getScores();
         // Re-Rank
         return Rankers.apply(scores, rankParams, searchParams.getSearchTerm());
     }
@@ -139,6 +206,7 @@ public class EntitySearcher {
                                 ModifiableSearchParams searchParams, ModifiableRankParams rankParams) {
         searchParams.model(BuiltInModel.FACT);
         KBCore core = stargraph.getKBCore(searchParams.getKbId().getId());
+        limitCandidates(core, searchParams, "pivots");
 
         if (rankParams instanceof ModifiableIndraParams) {
             core.configureDistributionalParams((ModifiableIndraParams) rankParams);
@@ -149,7 +217,7 @@ public class EntitySearcher {
         Searcher searcher = core.getSearcher(searchParams.getKbId().getModel());
 
         // Fetch initial candidates from the search engine
-        Scores scores = searcher.search(holder);
+        Scores scores = searcher.search(holder).getScores();
 
         // We have to remap the facts to properties, the real target of the ranker call.
         // Thus we're discarding the score values from the underlying search engine. Shall we?
@@ -161,4 +229,11 @@ public class EntitySearcher {
 
         return Rankers.apply(propScores, rankParams, searchParams.getSearchTerm());
     }
+
+    private void limitCandidates(KBCore core, ModifiableSearchParams searchParams, String searchType) {
+        if (searchParams.getLimit() < 0) {
+            // Caller did not ask for a specific amount, use the configured budget for this kind of search.
+            searchParams.limit(core.getCandidateLimit(searchType));
+        }
+    }
 }
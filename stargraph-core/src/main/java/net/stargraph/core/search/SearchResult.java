@@ -0,0 +1,100 @@
+package net.stargraph.core.search;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.rank.Scores;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a single search along with the statistics collected while it was materialized.
+ */
+public final class SearchResult {
+    private Scores scores;
+    private long totalHits;
+    private boolean totalHitsExact;
+    private long backendTime;
+    private long deserializationTime;
+    private long bytesTransferred;
+
+    public SearchResult(Scores scores, long totalHits, boolean totalHitsExact,
+                        long backendTime, long deserializationTime, long bytesTransferred) {
+        this.scores = Objects.requireNonNull(scores);
+        this.totalHits = totalHits;
+        this.totalHitsExact = totalHitsExact;
+        this.backendTime = backendTime;
+        this.deserializationTime = deserializationTime;
+        this.bytesTransferred = bytesTransferred;
+    }
+
+    public Scores getScores() {
+        return scores;
+    }
+
+    /**
+     * Number of entries actually fetched.
+     */
+    public int getHitCount() {
+        return scores.size();
+    }
+
+    /**
+     * Number of matching documents reported by the back-end, which can be greater than the hit count.
+     * Only a lower bound when {@link #isTotalHitsExact()} is false, as bounded searches stop counting early.
+     */
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public boolean isTotalHitsExact() {
+        return totalHitsExact;
+    }
+
+    public long getBackendTime(TimeUnit unit) {
+        return unit.convert(backendTime, TimeUnit.NANOSECONDS);
+    }
+
+    public long getDeserializationTime(TimeUnit unit) {
+        return unit.convert(deserializationTime, TimeUnit.NANOSECONDS);
+    }
+
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "hits=" + getHitCount() +
+                ", totalHits=" + (totalHitsExact ? "" : ">=") + totalHits +
+                ", backend=" + getBackendTime(TimeUnit.MILLISECONDS) + "ms" +
+                ", deserialization=" + getDeserializationTime(TimeUnit.MILLISECONDS) + "ms" +
+                ", bytes=" + bytesTransferred +
+                '}';
+    }
+}
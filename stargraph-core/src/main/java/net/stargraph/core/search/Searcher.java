@@ -37,8 +37,22 @@ public interface Searcher {
 
     void stop();
 
-    Scores search(SearchQueryHolder holder);
+    SearchResult search(SearchQueryHolder holder);
 
     long countDocuments();
 
+    /**
+     * Whether {@link #suggest(String, int)} answers for this model. Only some back-ends support it, on some models.
+     */
+    default boolean supportsSuggest() {
+        return false;
+    }
+
+    /**
+     * Entries whose label starts with the prefix, best first. Empty when {@link #supportsSuggest()} is false.
+     */
+    default Scores suggest(String prefix, int limit) {
+        return new Scores();
+    }
+
 }
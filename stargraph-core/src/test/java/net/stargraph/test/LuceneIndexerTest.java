@@ -28,15 +28,28 @@ package net.stargraph.test;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.KBCore;
 import net.stargraph.core.Stargraph;
+import net.stargraph.core.impl.lucene.LuceneFactory;
 import net.stargraph.core.index.Indexer;
+import net.stargraph.core.search.SearchQueryGenerator;
 import net.stargraph.core.search.Searcher;
+import net.stargraph.data.Indexable;
+import net.stargraph.model.BuiltInModel;
+import net.stargraph.model.Fact;
+import net.stargraph.model.InstanceEntity;
 import net.stargraph.model.KBId;
+import net.stargraph.model.LabeledEntity;
+import net.stargraph.rank.ModifiableSearchParams;
+import net.stargraph.rank.Score;
+import net.stargraph.rank.Scores;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
 
 public final class LuceneIndexerTest {
 
@@ -47,7 +60,8 @@ public final class LuceneIndexerTest {
     @BeforeClass
     public void beforeClass() {
         ConfigFactory.invalidateCaches();
-        Config config = ConfigFactory.load().getConfig("stargraph");
+        Config config = ConfigFactory.parseString("kb.obama.model.facts.index-store.factory.class = "
+                + LuceneFactory.class.getName()).withFallback(ConfigFactory.load().getConfig("stargraph"));
         File dataRootDir = TestUtils.prepareObamaTestEnv().toFile();
         this.stargraph = new Stargraph(config, false);
         stargraph.setKBInitSet(kbId.getId());
@@ -64,4 +78,74 @@ public final class LuceneIndexerTest {
         Searcher searcher = stargraph.getSearcher(kbId);
         Assert.assertEquals(searcher.countDocuments(), 756);
     }
+
+    @Test(dependsOnMethods = "bulkLoadTest")
+    public void batchedEntityResolutionTest() {
+        String id = "dbr:Barack_Obama";
+        Map<String, LabeledEntity> entities = stargraph.getEntitySearcher()
+                .getEntitiesById(kbId.getId(), Arrays.asList(id, "dbr:Not_An_Entity", id));
+
+        Assert.assertEquals(entities.size(), 1);
+        Assert.assertEquals(entities.get(id).getId(), id);
+        Assert.assertNotNull(stargraph.getKBCore(kbId.getId()).getEntityCache().getIfPresent(id));
+        Assert.assertEquals(stargraph.getEntitySearcher().getEntity(kbId.getId(), id), entities.get(id));
+    }
+
+    @Test(dependsOnMethods = "bulkLoadTest")
+    public void suggestTest() {
+        Scores scores = stargraph.getEntitySearcher().suggest(kbId.getId(), "barack ob", 5);
+
+        Assert.assertFalse(scores.isEmpty());
+        Assert.assertTrue(scores.size() <= 5);
+        Assert.assertTrue(scores.stream().anyMatch(s -> s.getRankableView().getId().equals("dbr:Barack_Obama")), scores.toString());
+    }
+
+    @Test(dependsOnMethods = "bulkLoadTest")
+    public void incrementalUpdateTest() throws Exception {
+        Indexer indexer = stargraph.getIndexer(kbId);
+        Searcher searcher = stargraph.getSearcher(kbId);
+        long count = searcher.countDocuments();
+
+        indexer.index(new Indexable(new InstanceEntity("dbr:Bo_(dog)", "Bo"), kbId));
+        indexer.flush();
+
+        // Searchable without a commit or a restart.
+        Assert.assertEquals(searcher.countDocuments(), count + 1);
+    }
+
+    @Test(dependsOnMethods = "bulkLoadTest")
+    public void fuzzyInstancesTest() {
+        KBCore core = stargraph.getKBCore(kbId.getId());
+        SearchQueryGenerator generator = core.getSearchQueryGenerator(kbId.getModel());
+        ModifiableSearchParams searchParams = ModifiableSearchParams.create(kbId.getId())
+                .model(BuiltInModel.ENTITY).term("Barak Obamma");
+
+        Scores scores = core.getSearcher(kbId.getModel()).search(generator.findEntityInstances(searchParams, 1)).getScores();
+
+        Assert.assertTrue(scores.stream().anyMatch(s -> s.getRankableView().getId().equals("dbr:Barack_Obama")), scores.toString());
+        // Served from the cache the second time.
+        Assert.assertSame(generator.findEntityInstances(searchParams, 1).getQuery(),
+                generator.findEntityInstances(searchParams, 1).getQuery());
+    }
+
+    @Test
+    public void factsTest() throws Exception {
+        KBId factsId = KBId.of("obama", "facts");
+        Indexer indexer = stargraph.getIndexer(factsId);
+        indexer.load(true, -1);
+        indexer.awaitLoader();
+
+        KBCore core = stargraph.getKBCore(factsId.getId());
+        SearchQueryGenerator generator = core.getSearchQueryGenerator(factsId.getModel());
+        ModifiableSearchParams searchParams = ModifiableSearchParams.create(factsId.getId()).model(BuiltInModel.FACT);
+        InstanceEntity pivot = new InstanceEntity("dbr:Barack_Obama", "Barack Obama");
+
+        Scores scores = core.getSearcher(factsId.getModel()).search(generator.findPivotFacts(pivot, searchParams)).getScores();
+
+        Assert.assertFalse(scores.isEmpty());
+        for (Score score : scores) {
+            Fact fact = (Fact) score.getEntry();
+            Assert.assertTrue(fact.getSubject().equals(pivot) || fact.getObject().equals(pivot), fact.toString());
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.KBCore;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.impl.lucene.LuceneSearchQueryGenerator;
+import net.stargraph.core.index.Indexer;
+import net.stargraph.core.search.SearchQueryGenerator;
+import net.stargraph.model.BuiltInModel;
+import net.stargraph.model.KBId;
+import net.stargraph.rank.ModifiableSearchParams;
+import net.stargraph.rank.Scores;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.TermQuery;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Entity candidates sharing enough character trigrams with the search term.
+ */
+public final class NGramCandidatesTest {
+
+    private KBId kbId = KBId.of("obama", "entities"); // Entities uses Lucene. See reference.conf.
+    private SearchQueryGenerator generator = new LuceneSearchQueryGenerator(0, true);
+    private KBCore core;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        ConfigFactory.invalidateCaches();
+        Config config = ConfigFactory.parseString("kb.obama.model.entities.lucene.candidates = ngram")
+                .withFallback(ConfigFactory.load().getConfig("stargraph"));
+        Stargraph stargraph = new Stargraph(config, false);
+        stargraph.setKBInitSet(kbId.getId());
+        stargraph.setDataRootDir(TestUtils.prepareObamaTestEnv().toFile());
+        stargraph.initialize();
+        core = stargraph.getKBCore(kbId.getId());
+
+        Indexer indexer = core.getIndexer(kbId.getModel());
+        indexer.load(true, -1);
+        indexer.awaitLoader();
+    }
+
+    @Test
+    public void paddedGramsTest() {
+        // Even a word too short for any edit has a gram per char, plus two for the padding.
+        Assert.assertEquals(grams(query("Jo", 1)), new HashSet<>(Arrays.asList("$$j", "$jo", "jo$", "o$$")));
+    }
+
+    @Test
+    public void minimumShouldMatchTest() {
+        // Per word: L + 2 grams, 3 of them may change with each edit allowed in the word.
+        BooleanQuery query = query("Barack Obama", 1);
+        Assert.assertEquals(query.clauses().size(), 8 + 7);
+        Assert.assertEquals(query.getMinimumNumberShouldMatch(), (8 - 3) + (7 - 3));
+
+        // No edit in words up to 2 chars, two in those over 5 chars.
+        query = query("Jo Robinette", 2);
+        Assert.assertEquals(query.clauses().size(), 4 + 11);
+        Assert.assertEquals(query.getMinimumNumberShouldMatch(), 4 + (11 - 6));
+
+        Assert.assertEquals(query("Barack Obama", 0).getMinimumNumberShouldMatch(), 8 + 7);
+
+        // Repeated grams count once.
+        query = query("Obama Obama", 1);
+        Assert.assertEquals(query.clauses().size(), 7);
+        Assert.assertEquals(query.getMinimumNumberShouldMatch(), (7 - 3) * 2 - 7);
+    }
+
+    @Test
+    public void misspelledRecallTest() {
+        for (String misspelled : Arrays.asList("Barak Obamma", "Brack Obama", "barack obma")) {
+            Scores scores = core.getSearcher(kbId.getModel())
+                    .search(generator.findEntityInstances(createParams(misspelled), 1)).getScores();
+            Assert.assertTrue(scores.stream().anyMatch(s -> s.getRankableView().getId().equals("dbr:Barack_Obama")),
+                    misspelled + ": " + scores);
+        }
+    }
+
+    @Test
+    public void beyondMaxEditsTest() {
+        // Three edits in each word allowing one, too few grams are left.
+        Scores scores = core.getSearcher(kbId.getModel())
+                .search(generator.findEntityInstances(createParams("Bxxxck Oxxxa"), 1)).getScores();
+        Assert.assertTrue(scores.stream().noneMatch(s -> s.getRankableView().getId().equals("dbr:Barack_Obama")),
+                scores.toString());
+    }
+
+    private BooleanQuery query(String term, int maxEdits) {
+        return (BooleanQuery) generator.findEntityInstances(createParams(term), maxEdits).getQuery();
+    }
+
+    private ModifiableSearchParams createParams(String term) {
+        return ModifiableSearchParams.create(kbId.getId()).model(BuiltInModel.ENTITY).term(term).limit(100);
+    }
+
+    private static Set<String> grams(BooleanQuery query) {
+        return query.clauses().stream().map(BooleanClause::getQuery)
+                .map(q -> ((TermQuery) q).getTerm().text()).collect(Collectors.toSet());
+    }
+}
@@ -34,6 +34,11 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 public final class NamespaceTest {
 
     private Namespace ns;
@@ -59,4 +64,42 @@ public final class NamespaceTest {
         Assert.assertFalse(ns.isFromMainNS(uri));
     }
 
+    @Test
+    public void shrinkLongestPrefixTest() {
+        Assert.assertEquals(ns.shrinkURI("http://dbpedia.org/resource/Barack_Obama"), "dbr:Barack_Obama");
+        Assert.assertEquals(ns.shrinkURI("http://dbpedia.org/resource/Category:Presidents"), "dbc:Presidents");
+        Assert.assertEquals(ns.shrinkURI("http://unknown.org/Barack_Obama"), "http://unknown.org/Barack_Obama");
+    }
+
+    @Test
+    public void expandTest() {
+        Assert.assertEquals(ns.expandURI("dbc:Presidents"), "http://dbpedia.org/resource/Category:Presidents");
+        Assert.assertEquals(ns.expandURI("dbr:Barack_Obama"), "http://dbpedia.org/resource/Barack_Obama");
+        Assert.assertEquals(ns.expandURI("unknown:Barack_Obama"), "unknown:Barack_Obama");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void readOnlyTest() {
+        ns.getMappings().put("http://unknown.org/", "unknown:");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void readOnlyEntryTest() {
+        ns.getMappings().entrySet().iterator().next().setValue("unknown:");
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ns);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Namespace copy = (Namespace) in.readObject();
+            Assert.assertEquals(copy.shrinkURI("http://dbpedia.org/resource/Barack_Obama"), "dbr:Barack_Obama");
+            Assert.assertEquals(copy.expandURI("dbc:Presidents"), "http://dbpedia.org/resource/Category:Presidents");
+            Assert.assertTrue(copy.isFromMainNS("http://dbpedia.org/resource/BO"));
+        }
+    }
+
 }
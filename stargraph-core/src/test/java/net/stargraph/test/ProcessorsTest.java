@@ -31,6 +31,7 @@ import com.typesafe.config.ConfigFactory;
 import net.stargraph.ModelUtils;
 import net.stargraph.core.processors.CoreferenceResolutionProcessor;
 import net.stargraph.core.processors.Processors;
+import net.stargraph.core.processors.SinkDuplicateProcessor;
 import net.stargraph.data.Indexable;
 import net.stargraph.data.processor.FatalProcessorException;
 import net.stargraph.data.processor.Holder;
@@ -91,6 +92,47 @@ public final class ProcessorsTest {
         Assert.assertTrue(holder.isSinkable());
     }
 
+    @Test
+    public void exactDuplicateProcessorTest() {
+        KBId kbId = KBId.of("obama", "facts");
+        // Tiny sizes to force growing and spilling to disk.
+        Config sinkConfig = ConfigFactory.parseString("sink-duplicate { mode = exact, expected-entries = 16, " +
+                "max-memory = 1K, spill-dir = null, fpp = 0.02 }");
+        SinkDuplicateProcessor processor = (SinkDuplicateProcessor) Processors.create(sinkConfig);
+        processor.beforeLoad(true);
+
+        int unique = 5000;
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < unique; i++) {
+                Holder holder = new Indexable(ModelUtils.createProperty("http://dbpedia.org/property/p" + i), kbId);
+                processor.run(holder);
+                Assert.assertEquals(holder.isSinkable(), round > 0);
+            }
+        }
+
+        Assert.assertEquals(processor.getSunkCount(), unique);
+        processor.beforeLoad(true);
+        Assert.assertEquals(processor.getSunkCount(), 0);
+    }
+
+    @Test
+    public void contentHashTest() {
+        KBId kbId = KBId.of("obama", "facts");
+        Fact fact = ModelUtils.createFact(kbId, "dbr:Barack_Obama", "dbp:spouse", "dbr:Michelle_Obama");
+        Fact same = ModelUtils.createFact(kbId, "dbr:Barack_Obama", "dbp:spouse", "dbr:Michelle_Obama");
+        Fact other = ModelUtils.createFact(kbId, "dbr:Barack_Obama", "dbp:spouse", "dbr:Barack_Obama");
+
+        Assert.assertEquals(fact.hash(), same.hash());
+        Assert.assertFalse(Arrays.equals(fact.hash(), other.hash()));
+        Assert.assertEquals(fact.hash().length, 16);
+
+        // Same fields, different types.
+        Assert.assertFalse(Arrays.equals(new ClassEntity("dbc:Presidents", "Presidents", false).hash(),
+                new InstanceEntity("dbc:Presidents", "Presidents").hash()));
+        Assert.assertFalse(Arrays.equals(new ValueEntity("1961", "xsd:integer", null).hash(),
+                new ValueEntity("1961", null, null).hash()));
+    }
+
     @Test(expectedExceptions = FatalProcessorException.class)
     public void unrecoverableErrorProcessorTest() {
         KBId kbId = KBId.of("any", "type");
@@ -0,0 +1,168 @@
+package net.stargraph.test.it;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.KBCore;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.index.Indexer;
+import net.stargraph.core.search.SearchQueryGenerator;
+import net.stargraph.core.search.SearchQueryHolder;
+import net.stargraph.core.search.SearchResult;
+import net.stargraph.core.search.Searcher;
+import net.stargraph.model.BuiltInModel;
+import net.stargraph.model.KBId;
+import net.stargraph.rank.ModifiableSearchParams;
+import net.stargraph.test.TestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Latency of the entity candidate retrieval against the candidate budget.
+ */
+public final class CandidateRetrievalBenchmarkIT {
+    private static final int WARMUP = 50;
+    private static final int ROUNDS = 500;
+    private static final String[] SHORT_NAMES = {"Obama", "Barack Obama", "Michelle", "Hawaii", "Chicago", "Harvard",
+            "Honolulu", "Malia", "Sasha", "Biden", "Senate", "Illinois", "Kenya", "Jakarta", "Columbia"};
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private KBId kbId = KBId.of("obama", "entities"); // Entities uses Lucene. See reference.conf.
+    private KBCore core;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        ConfigFactory.invalidateCaches();
+        Config config = ConfigFactory.load().getConfig("stargraph");
+        Stargraph stargraph = new Stargraph(config, false);
+        stargraph.setKBInitSet(kbId.getId());
+        stargraph.setDataRootDir(TestUtils.prepareObamaTestEnv().toFile());
+        stargraph.initialize();
+        core = stargraph.getKBCore(kbId.getId());
+
+        Indexer indexer = core.getIndexer(kbId.getModel());
+        indexer.load(true, -1);
+        indexer.awaitLoader();
+    }
+
+    @Test(dataProvider = "limits")
+    public void instanceCandidatesTest(int limit) {
+        Searcher searcher = core.getSearcher(kbId.getModel());
+        SearchQueryGenerator generator = core.getSearchQueryGenerator(kbId.getModel());
+
+        for (int i = 0; i < WARMUP; i++) {
+            searcher.search(createHolder(generator, limit));
+        }
+
+        long start = System.nanoTime();
+        SearchResult result = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            result = searcher.search(createHolder(generator, limit));
+        }
+        double avgMicros = (System.nanoTime() - start) / 1000.0 / ROUNDS;
+
+        logger.info("limit={}, avg={}us, {}", limit, String.format("%.1f", avgMicros), result);
+
+        if (limit >= 0) {
+            Assert.assertTrue(result.getHitCount() <= limit);
+        }
+    }
+
+    /**
+     * NER looks up many short names, most of them repeatedly. Query building is timed apart from searching.
+     */
+    @Test
+    public void shortNamesTest() {
+        Searcher searcher = core.getSearcher(kbId.getModel());
+        SearchQueryGenerator generator = core.getSearchQueryGenerator(kbId.getModel());
+
+        for (int i = 0; i < WARMUP; i++) {
+            searcher.search(generator.findEntityInstances(createParams(SHORT_NAMES[i % SHORT_NAMES.length], 100), 1));
+        }
+
+        long buildTime = 0;
+        long searchTime = 0;
+        long hits = 0;
+        for (int i = 0; i < ROUNDS * SHORT_NAMES.length; i++) {
+            long start = System.nanoTime();
+            SearchQueryHolder holder = generator.findEntityInstances(createParams(SHORT_NAMES[i % SHORT_NAMES.length], 100), 1);
+            long built = System.nanoTime();
+            hits += searcher.search(holder).getHitCount();
+            searchTime += System.nanoTime() - built;
+            buildTime += built - start;
+        }
+
+        double lookups = ROUNDS * SHORT_NAMES.length;
+        logger.info("{} names, build avg={}us, search avg={}us, {} hits", SHORT_NAMES.length,
+                String.format("%.2f", buildTime / 1000.0 / lookups),
+                String.format("%.1f", searchTime / 1000.0 / lookups), hits);
+
+        Assert.assertTrue(hits > 0);
+    }
+
+    /**
+     * Typeahead, each keystroke of the short names being a lookup.
+     */
+    @Test
+    public void suggestTest() {
+        Searcher searcher = core.getSearcher(kbId.getModel());
+
+        long start = System.nanoTime();
+        long lookups = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            for (String name : SHORT_NAMES) {
+                for (int len = 1; len <= name.length(); len++) {
+                    searcher.suggest(name.substring(0, len), 10);
+                    lookups++;
+                }
+            }
+        }
+        double avgMicros = (System.nanoTime() - start) / 1000.0 / lookups;
+
+        logger.info("{} lookups, avg={}us", lookups, String.format("%.1f", avgMicros));
+
+        Assert.assertFalse(searcher.suggest("Oba", 10).isEmpty());
+    }
+
+    @DataProvider(name = "limits")
+    public static Object[][] limits() {
+        return new Object[][] {{1}, {10}, {100}, {1000}, {-1}};
+    }
+
+    private SearchQueryHolder createHolder(SearchQueryGenerator generator, int limit) {
+        return generator.findEntityInstances(createParams("Obama", limit), 1);
+    }
+
+    private ModifiableSearchParams createParams(String term, int limit) {
+        return ModifiableSearchParams.create(kbId.getId()).model(BuiltInModel.ENTITY).term(term).limit(limit);
+    }
+}
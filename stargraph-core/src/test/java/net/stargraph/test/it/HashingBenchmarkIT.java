@@ -0,0 +1,112 @@
+package net.stargraph.test.it;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.ModelUtils;
+import net.stargraph.model.Fact;
+import net.stargraph.model.KBId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Content hashing against the former serialization based hash used by the duplicate sink.
+ */
+public final class HashingBenchmarkIT {
+    private static final int FACTS = 10_000;
+    private static final int WARMUP = 10;
+    private static final int ROUNDS = 50;
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private List<Fact> facts;
+    private volatile long blackhole; // keeps the JIT from dropping the work
+
+    @BeforeClass
+    public void beforeClass() {
+        KBId kbId = KBId.of("obama", "facts");
+        facts = new ArrayList<>(FACTS);
+        for (int i = 0; i < FACTS; i++) {
+            facts.add(ModelUtils.createFact(kbId,
+                    "http://dbpedia.org/resource/Entity_" + i,
+                    "http://dbpedia.org/property/property_" + (i % 100),
+                    "http://dbpedia.org/resource/Category:Category_" + (i % 1000)));
+        }
+    }
+
+    @Test
+    public void serializationHashTest() {
+        double avgMicros = measure(fact -> ModelUtils.createHashId(fact));
+        logger.info("serialization: avg={}us per fact", String.format("%.3f", avgMicros));
+    }
+
+    @Test
+    public void contentHashTest() {
+        double avgMicros = measure(Fact::hash);
+        logger.info("content: avg={}us per fact", String.format("%.3f", avgMicros));
+    }
+
+    @Test
+    public void contentHashCollisionTest() {
+        long distinct = facts.stream().map(f -> Arrays.toString(f.hash())).distinct().count();
+        Assert.assertEquals(distinct, FACTS);
+    }
+
+    private double measure(HashFunction function) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += run(function);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += run(function);
+        }
+        double avgMicros = (System.nanoTime() - start) / 1000.0 / ROUNDS / FACTS;
+
+        blackhole = sink;
+        return avgMicros;
+    }
+
+    private long run(HashFunction function) {
+        long sink = 0;
+        for (Fact fact : facts) {
+            sink += function.hash(fact)[0];
+        }
+        return sink;
+    }
+
+    private interface HashFunction {
+        byte[] hash(Fact fact);
+    }
+}
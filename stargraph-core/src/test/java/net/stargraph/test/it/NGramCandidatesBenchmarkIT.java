@@ -0,0 +1,150 @@
+package net.stargraph.test.it;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.KBCore;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.impl.lucene.LuceneSearchQueryGenerator;
+import net.stargraph.core.index.Indexer;
+import net.stargraph.core.search.SearchQueryGenerator;
+import net.stargraph.core.search.Searcher;
+import net.stargraph.model.BuiltInModel;
+import net.stargraph.model.KBId;
+import net.stargraph.rank.ModifiableSearchParams;
+import net.stargraph.rank.Scores;
+import net.stargraph.test.TestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Recall and latency of the n-gram entity candidates against the fuzzy ones, looking up misspelled names.
+ * Expected entities are those matching the correctly spelled name exactly.
+ */
+public final class NGramCandidatesBenchmarkIT {
+    private static final int ROUNDS = 200;
+    private static final int LIMIT = 100;
+    private static final String[] NAMES = {"Barack Obama", "Michelle Obama", "Honolulu", "Chicago", "Harvard Law School",
+            "Columbia University", "Illinois Senate", "Joe Biden", "Hillary Clinton", "Democratic Party"};
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private KBId kbId = KBId.of("obama", "entities"); // Entities uses Lucene. See reference.conf.
+    private KBCore core;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        ConfigFactory.invalidateCaches();
+        Config config = ConfigFactory.parseString("kb.obama.model.entities.lucene.candidates = ngram")
+                .withFallback(ConfigFactory.load().getConfig("stargraph"));
+        Stargraph stargraph = new Stargraph(config, false);
+        stargraph.setKBInitSet(kbId.getId());
+        stargraph.setDataRootDir(TestUtils.prepareObamaTestEnv().toFile());
+        stargraph.initialize();
+        core = stargraph.getKBCore(kbId.getId());
+
+        Indexer indexer = core.getIndexer(kbId.getModel());
+        indexer.load(true, -1);
+        indexer.awaitLoader();
+    }
+
+    @Test
+    public void misspelledNamesTest() {
+        SearchQueryGenerator fuzzy = new LuceneSearchQueryGenerator(0, false);
+        SearchQueryGenerator ngram = new LuceneSearchQueryGenerator(0, true);
+
+        double fuzzyRecall = run("fuzzy", fuzzy);
+        double ngramRecall = run("ngram", ngram);
+
+        Assert.assertTrue(ngramRecall > 0);
+        Assert.assertTrue(fuzzyRecall > 0);
+    }
+
+    private double run(String name, SearchQueryGenerator generator) {
+        Searcher searcher = core.getSearcher(kbId.getModel());
+        SearchQueryGenerator exact = new LuceneSearchQueryGenerator(0, false);
+
+        int expected = 0;
+        int found = 0;
+        long elapsed = 0;
+
+        for (String entityName : NAMES) {
+            Set<String> expectedIds = ids(searcher.search(exact.findEntityInstances(createParams(entityName), 0)).getScores());
+            String misspelled = misspell(entityName);
+            Set<String> candidateIds = null;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                candidateIds = ids(searcher.search(generator.findEntityInstances(createParams(misspelled), 1)).getScores());
+            }
+            elapsed += System.nanoTime() - start;
+
+            expected += expectedIds.size();
+            expectedIds.retainAll(candidateIds);
+            found += expectedIds.size();
+        }
+
+        double recall = expected > 0 ? (double) found / expected : 0;
+        double avgMicros = elapsed / 1000.0 / (ROUNDS * NAMES.length);
+        logger.info("{}: recall={} ({}/{}), avg={}us", name, String.format("%.2f", recall), found, expected,
+                String.format("%.1f", avgMicros));
+        return recall;
+    }
+
+    /**
+     * Drops a character in the middle of the longest word.
+     */
+    private static String misspell(String name) {
+        String[] words = name.split(" ");
+        int longest = 0;
+        for (int i = 1; i < words.length; i++) {
+            if (words[i].length() > words[longest].length()) {
+                longest = i;
+            }
+        }
+        String word = words[longest];
+        int mid = word.length() / 2;
+        words[longest] = word.substring(0, mid) + word.substring(mid + 1);
+        return String.join(" ", words);
+    }
+
+    private static Set<String> ids(Scores scores) {
+        Set<String> ids = new HashSet<>();
+        scores.forEach(s -> ids.add(s.getRankableView().getId()));
+        return ids;
+    }
+
+    private ModifiableSearchParams createParams(String term) {
+        return ModifiableSearchParams.create(kbId.getId()).model(BuiltInModel.ENTITY).term(term).limit(LIMIT);
+    }
+}
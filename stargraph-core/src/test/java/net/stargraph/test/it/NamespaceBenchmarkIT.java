@@ -0,0 +1,146 @@
+package net.stargraph.test.it;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.core.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * URI shrinking and expansion over the default-namespace.txt mappings, against the linear scan it replaced.
+ */
+public final class NamespaceBenchmarkIT {
+    private static final int URIS = 100_000;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Namespace ns;
+    private List<String> uris;
+    private List<String> shrunk;
+    private volatile int blackhole; // keeps the JIT from dropping the work
+
+    @BeforeClass
+    public void beforeClass() {
+        ns = Namespace.createDefault();
+        List<String> prefixes = new ArrayList<>(ns.getMappings().keySet());
+        Random random = new Random(42);
+        uris = new ArrayList<>(URIS);
+        for (int i = 0; i < URIS; i++) {
+            // One in ten is not mapped at all.
+            String base = i % 10 == 0 ? "http://unmapped.org/resource/" : prefixes.get(random.nextInt(prefixes.size()));
+            uris.add(base + "Entity_" + i);
+        }
+        shrunk = new ArrayList<>(URIS);
+        uris.forEach(uri -> shrunk.add(ns.shrinkURI(uri)));
+    }
+
+    @Test
+    public void shrinkTest() {
+        logger.info("shrink trie: avg={}ns", format(measure(uris, ns::shrinkURI)));
+        logger.info("shrink scan: avg={}ns", format(measure(uris, this::linearShrink)));
+        for (String uri : uris) {
+            Assert.assertEquals(ns.shrinkURI(uri), linearShrink(uri));
+        }
+    }
+
+    @Test
+    public void expandTest() {
+        logger.info("expand trie: avg={}ns", format(measure(shrunk, ns::expandURI)));
+        logger.info("expand scan: avg={}ns", format(measure(shrunk, this::linearExpand)));
+        for (int i = 0; i < URIS; i++) {
+            Assert.assertEquals(ns.expandURI(shrunk.get(i)), uris.get(i));
+        }
+    }
+
+    @Test
+    public void concurrentShrinkTest() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        long mismatches = IntStream.range(0, URIS * ROUNDS).parallel()
+                .filter(i -> !ns.expandURI(ns.shrinkURI(uris.get(i % URIS))).equals(uris.get(i % URIS)))
+                .count();
+        double avgNanos = (System.nanoTime() - start) / (double) URIS / ROUNDS;
+        logger.info("shrink+expand on {} threads: avg={}ns", threads, format(avgNanos));
+        Assert.assertEquals(mismatches, 0);
+    }
+
+    private double measure(List<String> input, Function<String, String> function) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            for (String uri : input) {
+                sink += function.apply(uri).length();
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (String uri : input) {
+                sink += function.apply(uri).length();
+            }
+        }
+        double avgNanos = (System.nanoTime() - start) / (double) input.size() / ROUNDS;
+
+        blackhole = sink;
+        return avgNanos;
+    }
+
+    private String linearShrink(String uri) {
+        if (uri.startsWith("http://")) {
+            for (Map.Entry<String, String> entry : ns.getMappings().entrySet()) {
+                if (uri.startsWith(entry.getKey())) {
+                    return entry.getValue() + uri.substring(entry.getKey().length());
+                }
+            }
+        }
+        return uri;
+    }
+
+    private String linearExpand(String uri) {
+        for (Map.Entry<String, String> entry : ns.getMappings().entrySet()) {
+            if (uri.startsWith(entry.getValue())) {
+                return entry.getKey() + uri.substring(entry.getValue().length());
+            }
+        }
+        return uri;
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}
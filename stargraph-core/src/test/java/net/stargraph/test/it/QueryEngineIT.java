@@ -27,6 +27,8 @@ package net.stargraph.test.it;
  */
 
 import net.stargraph.core.Stargraph;
+import net.stargraph.core.graph.GraphSearcher;
+import net.stargraph.core.graph.SelectHandler;
 import net.stargraph.core.query.QueryEngine;
 import net.stargraph.core.query.response.AnswerSetResponse;
 import net.stargraph.core.query.response.SPARQLSelectResponse;
@@ -40,17 +42,22 @@ import org.testng.annotations.Test;
 import javax.json.*;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class QueryEngineIT {
     private static String dbId = "dbpedia-2016";
+    private Stargraph stargraph;
     private QueryEngine queryEngine;
 
     @BeforeClass
     public void beforeClass() {
-        queryEngine = new QueryEngine(dbId, new Stargraph());
+        stargraph = new Stargraph();
+        queryEngine = new QueryEngine(dbId, stargraph);
     }
 
     @Test
@@ -59,6 +66,16 @@ public class QueryEngineIT {
         Assert.assertTrue(response.getEntityAnswer().contains(new InstanceEntity("http://dbpedia.org/resource/Michelle_Obama", "Michelle Obama")));
     }
 
+    @Test
+    public void concurrentQueriesTest() {
+        InstanceEntity michelle = new InstanceEntity("http://dbpedia.org/resource/Michelle_Obama", "Michelle Obama");
+        long answered = IntStream.range(0, 8).parallel()
+                .mapToObj(i -> (AnswerSetResponse) queryEngine.query("Who is the wife of Barack Obama?"))
+                .filter(response -> response.getEntityAnswer().contains(michelle))
+                .count();
+        Assert.assertEquals(answered, 8);
+    }
+
     @Test
     public void sparqlSelectTest() {
         SPARQLSelectResponse response  = (SPARQLSelectResponse) queryEngine.query("SELECT ?o WHERE " +
@@ -67,6 +84,36 @@ public class QueryEngineIT {
                 response.getBindings().get("o").get(0).getId());
     }
 
+    @Test
+    public void sparqlSelectStreamTest() throws Exception {
+        GraphSearcher graphSearcher = stargraph.getKBCore(dbId).createGraphSearcher();
+        List<String> vars = new ArrayList<>();
+        List<Map<String, LabeledEntity>> rows = new ArrayList<>();
+
+        long count = graphSearcher.select("SELECT ?p ?o WHERE { <http://dbpedia.org/resource/Barack_Obama> ?p ?o }",
+                5, 10, new SelectHandler() {
+                    @Override
+                    public void start(List<String> v) {
+                        vars.addAll(v);
+                    }
+
+                    @Override
+                    public void rows(List<Map<String, LabeledEntity>> r) {
+                        rows.addAll(r);
+                    }
+
+                    @Override
+                    public void end(long rowCount) {
+                        Assert.assertEquals(rowCount, rows.size());
+                    }
+                });
+
+        Assert.assertEquals(vars, Arrays.asList("p", "o"));
+        Assert.assertEquals(count, 10);
+        Assert.assertEquals(rows.size(), 10);
+        rows.forEach(row -> Assert.assertNotNull(row.get("o")));
+    }
+
     @Test(dataProvider = "nlQueries", dataProviderClass = QueryEngineIT.class)
     public void test(String q, List<String> answers) {
         AnswerSetResponse response = (AnswerSetResponse) queryEngine.query(q);
@@ -0,0 +1,143 @@
+package net.stargraph.test.it;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.KBCore;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.index.Indexer;
+import net.stargraph.core.search.SearchQueryGenerator;
+import net.stargraph.core.search.SearchResult;
+import net.stargraph.core.search.Searcher;
+import net.stargraph.model.BuiltInModel;
+import net.stargraph.model.KBId;
+import net.stargraph.rank.ModifiableSearchParams;
+import net.stargraph.test.TestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Entities stay searchable while a reset load rebuilds them in a shadow index, which replaces the live one only
+ * when complete.
+ */
+public final class ShadowReloadIT {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private KBId kbId = KBId.of("obama", "entities"); // Entities uses Lucene. See reference.conf.
+    private Path modelPath;
+    private KBCore core;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        ConfigFactory.invalidateCaches();
+        Config config = ConfigFactory.parseString("kb.obama.model.entities.lucene.shadow-reload.enabled = true")
+                .withFallback(ConfigFactory.load().getConfig("stargraph"));
+        Path root = TestUtils.prepareObamaTestEnv();
+        modelPath = root.resolve(kbId.getId()).resolve(kbId.getModel());
+        Stargraph stargraph = new Stargraph(config, false);
+        stargraph.setKBInitSet(kbId.getId());
+        stargraph.setDataRootDir(root.toFile());
+        stargraph.initialize();
+        core = stargraph.getKBCore(kbId.getId());
+
+        Indexer indexer = core.getIndexer(kbId.getModel());
+        indexer.load(true, -1);
+        indexer.awaitLoader();
+    }
+
+    @Test
+    public void searchWhileReloadingTest() throws Exception {
+        Indexer indexer = core.getIndexer(kbId.getModel());
+        Searcher searcher = core.getSearcher(kbId.getModel());
+        SearchQueryGenerator generator = core.getSearchQueryGenerator(kbId.getModel());
+        ModifiableSearchParams searchParams = ModifiableSearchParams.create(kbId.getId())
+                .model(BuiltInModel.ENTITY).term("Obama").limit(100);
+
+        // Same as a regular load, see LuceneIndexerTest.
+        Assert.assertEquals(searcher.countDocuments(), 756);
+        String before = currentIndex();
+
+        indexer.load(true, -1);
+        int rounds = 0;
+        // Polled, awaiting with a timeout would abort the load.
+        while (indexer.isLoading()) {
+            Assert.assertEquals(searcher.countDocuments(), 756);
+            SearchResult result = searcher.search(generator.findEntityInstances(searchParams, 1));
+            Assert.assertTrue(result.getScores().stream().anyMatch(s -> s.getRankableView().getId().equals("dbr:Barack_Obama")));
+            rounds++;
+        }
+        indexer.awaitLoader(); // Only rethrows a failure, the loader is done.
+        logger.info("{} rounds searched during the reload.", rounds);
+
+        Assert.assertTrue(rounds > 0);
+        Assert.assertEquals(searcher.countDocuments(), 756);
+        Assert.assertNotEquals(currentIndex(), before);
+    }
+
+    @Test
+    public void truncatedReloadTest() throws Exception {
+        Indexer indexer = core.getIndexer(kbId.getModel());
+        Searcher searcher = core.getSearcher(kbId.getModel());
+        String before = currentIndex();
+
+        // Far less than shadow-reload.min-ratio of the live documents.
+        indexer.load(true, 100);
+        try {
+            indexer.awaitLoader();
+            Assert.fail("Truncated shadow index swapped in.");
+        } catch (ExecutionException e) {
+            logger.info("Rejected: {}", e.getCause().getMessage());
+        }
+
+        Assert.assertEquals(currentIndex(), before);
+        Assert.assertEquals(searcher.countDocuments(), 756);
+        Assert.assertEquals(indexDirs(), Collections.singletonList(before));
+    }
+
+    private List<String> indexDirs() throws Exception {
+        try (Stream<Path> paths = Files.list(modelPath)) {
+            return paths.filter(Files::isDirectory).map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("idx")).collect(Collectors.toList());
+        }
+    }
+
+    private String currentIndex() throws Exception {
+        Path current = modelPath.resolve("current-index");
+        return Files.exists(current) ? new String(Files.readAllBytes(current), "UTF-8").trim() : "idx";
+    }
+}
@@ -0,0 +1,118 @@
+package net.stargraph.test.it;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.KBCore;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.index.Indexer;
+import net.stargraph.core.search.SearchQueryGenerator;
+import net.stargraph.core.search.SearchResult;
+import net.stargraph.core.search.Searcher;
+import net.stargraph.model.BuiltInModel;
+import net.stargraph.model.KBId;
+import net.stargraph.rank.ModifiableSearchParams;
+import net.stargraph.test.TestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Latency of single queries over a sharded entities model, its segments being searched concurrently both for the
+ * default bounded top-K and for unbounded searches.
+ */
+public final class ShardedSearchBenchmarkIT {
+    private static final int SHARDS = 4;
+    private static final int WARMUP = 50;
+    private static final int ROUNDS = 500;
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private KBId kbId = KBId.of("obama", "entities"); // Entities uses Lucene. See reference.conf.
+    private KBCore core;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        ConfigFactory.invalidateCaches();
+        Config config = ConfigFactory.parseString("kb.obama.model.entities.lucene.shards = " + SHARDS)
+                .withFallback(ConfigFactory.load().getConfig("stargraph"));
+        Stargraph stargraph = new Stargraph(config, false);
+        stargraph.setKBInitSet(kbId.getId());
+        stargraph.setDataRootDir(TestUtils.prepareObamaTestEnv().toFile());
+        stargraph.initialize();
+        core = stargraph.getKBCore(kbId.getId());
+
+        Indexer indexer = core.getIndexer(kbId.getModel());
+        indexer.load(true, -1);
+        indexer.awaitLoader();
+    }
+
+    @Test
+    public void shardedSearchTest() {
+        Searcher searcher = core.getSearcher(kbId.getModel());
+
+        // Same as unsharded, see LuceneIndexerTest.
+        Assert.assertEquals(searcher.countDocuments(), 756);
+
+        // Bounded by the candidate limits by default, collected through a shared top-K manager.
+        SearchResult bounded = benchmark("bounded", 100);
+        Assert.assertTrue(bounded.getScores().size() <= 100);
+        // Every hit sorted by relevance.
+        SearchResult unbounded = benchmark("unbounded", -1);
+
+        Assert.assertTrue(bounded.getScores().size() > 0);
+        Assert.assertEquals(bounded.getScores().get(0).getRankableView().getId(),
+                unbounded.getScores().get(0).getRankableView().getId());
+    }
+
+    private SearchResult benchmark(String name, int limit) {
+        Searcher searcher = core.getSearcher(kbId.getModel());
+        SearchQueryGenerator generator = core.getSearchQueryGenerator(kbId.getModel());
+        ModifiableSearchParams searchParams = ModifiableSearchParams.create(kbId.getId())
+                .model(BuiltInModel.ENTITY).term("Obama").limit(limit);
+
+        for (int i = 0; i < WARMUP; i++) {
+            searcher.search(generator.findEntityInstances(searchParams, 1));
+        }
+
+        long start = System.nanoTime();
+        SearchResult result = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            result = searcher.search(generator.findEntityInstances(searchParams, 1));
+        }
+        double avgMicros = (System.nanoTime() - start) / 1000.0 / ROUNDS;
+
+        logger.info("{}: shards={}, cpus={}, avg={}us, {}", name, SHARDS, Runtime.getRuntime().availableProcessors(),
+                String.format("%.1f", avgMicros), result);
+
+        Assert.assertTrue(result.getHitCount() > 0);
+        Assert.assertTrue(result.getScores().stream().anyMatch(s -> s.getRankableView().getId().equals("dbr:Barack_Obama")));
+        return result;
+    }
+}
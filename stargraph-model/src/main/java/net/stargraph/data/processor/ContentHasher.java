@@ -0,0 +1,199 @@
+package net.stargraph.data.processor;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import java.util.Collection;
+
+/**
+ * Streaming 128-bit MurmurHash3 (x64 variant) fed straight from model fields, 64 bits at a time.
+ * No byte streams are built along the way. Not cryptographic, intended for fingerprinting. Not thread-safe.
+ */
+public final class ContentHasher {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    private long k1;
+    private boolean pending;
+    private long length;
+
+    public ContentHasher putLong(long value) {
+        if (!pending) {
+            k1 = value;
+            pending = true;
+        } else {
+            mixBlock(k1, value);
+            pending = false;
+        }
+        length += 8;
+        return this;
+    }
+
+    /**
+     * Type tag, the class name hash is cached by the JVM so this is as cheap as an int.
+     */
+    public ContentHasher putType(Class<?> type) {
+        return putInt(type.getName().hashCode());
+    }
+
+    public ContentHasher putInt(int value) {
+        return putLong(value);
+    }
+
+    public ContentHasher putBoolean(boolean value) {
+        return putLong(value ? 1 : 0);
+    }
+
+    /**
+     * Length prefixed, so consecutive strings can't be shifted into each other. Null is distinct from empty.
+     */
+    public ContentHasher putString(String value) {
+        if (value == null) {
+            return putLong(-1);
+        }
+
+        final int len = value.length();
+        putLong(len);
+
+        int i = 0;
+        for (; i + 4 <= len; i += 4) {
+            putLong((long) value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48);
+        }
+
+        if (i < len) {
+            long word = 0;
+            for (int shift = 0; i < len; i++, shift += 16) {
+                word |= (long) value.charAt(i) << shift;
+            }
+            putLong(word);
+        }
+
+        return this;
+    }
+
+    public ContentHasher putStrings(Collection<String> values) {
+        if (values == null) {
+            return putLong(-1);
+        }
+        putLong(values.size());
+        for (String value : values) {
+            putString(value);
+        }
+        return this;
+    }
+
+    public ContentHasher putBytes(byte[] bytes) {
+        putLong(bytes.length);
+        for (int i = 0; i < bytes.length; i += 8) {
+            long word = 0;
+            for (int j = i; j < Math.min(i + 8, bytes.length); j++) {
+                word |= (bytes[j] & 0xFFL) << ((j - i) * 8);
+            }
+            putLong(word);
+        }
+        return this;
+    }
+
+    /**
+     * Nested content, i.e the subject of a fact.
+     */
+    public ContentHasher put(Hashable hashable) {
+        hashable.hashContent(this);
+        return this;
+    }
+
+    /**
+     * Finishes the hash. The hasher should not be used afterwards.
+     */
+    public byte[] hash() {
+        if (pending) {
+            h1 ^= mixK1(k1);
+            pending = false;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        byte[] result = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            result[i] = (byte) (h1 >>> (56 - 8 * i));
+            result[i + 8] = (byte) (h2 >>> (56 - 8 * i));
+        }
+        return result;
+    }
+
+    private void mixBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -31,12 +31,24 @@ import net.stargraph.ModelUtils;
 import java.io.Serializable;
 
 /**
- * Should be used where a secure hash of this data us required.
+ * Should be used where a non-cryptographic 128-bit fingerprint of this data is required.
+ * Implementations are expected to override {@link #hashContent(ContentHasher)} feeding their canonical fields,
+ * the serialization based fallback is much slower and only kept for types that don't.
  */
 public interface Hashable extends Serializable {
 
     default byte[] hash() {
-        return ModelUtils.createHashId(this);
+        ContentHasher hasher = new ContentHasher();
+        hashContent(hasher);
+        return hasher.hash();
+    }
+
+    /**
+     * Feeds the fields that define the identity of this content. Starts with a type tag so equal fields
+     * of different types don't collide.
+     */
+    default void hashContent(ContentHasher hasher) {
+        hasher.putType(getClass()).putBytes(ModelUtils.createHashId(this));
     }
 
 }
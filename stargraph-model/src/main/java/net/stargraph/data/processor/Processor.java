@@ -32,4 +32,28 @@ public interface Processor<T extends Serializable> {
 
     void run(Holder<T> holder) throws ProcessorException;
 
+    /**
+     * Whether {@link #run(Holder)} can be called concurrently by the loader workers.
+     * Processors that are not thread-safe are serialized by the {@link ProcessorChain}.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Called before a bulk load starts.
+     *
+     * @param reset Whether the previously loaded data is being replaced.
+     */
+    default void beforeLoad(boolean reset) {
+        // Stateless by default.
+    }
+
+    /**
+     * Called once a bulk load is over.
+     */
+    default void afterLoad() {
+        // Stateless by default.
+    }
+
 }
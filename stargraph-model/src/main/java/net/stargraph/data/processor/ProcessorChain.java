@@ -41,10 +41,24 @@ public final class ProcessorChain {
     @SuppressWarnings("unchecked")
     public void run(Holder holder) throws ProcessorException {
         for (Processor p : chain) {
-            p.run(holder);
+            if (p.isThreadSafe()) {
+                p.run(holder);
+            } else {
+                synchronized (p) {
+                    p.run(holder);
+                }
+            }
         }
     }
 
+    public void beforeLoad(boolean reset) {
+        chain.forEach(p -> p.beforeLoad(reset));
+    }
+
+    public void afterLoad() {
+        chain.forEach(Processor::afterLoad);
+    }
+
     @Override
     public String toString() {
         return "ProcessorChain{" +
@@ -26,6 +26,8 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
+
 public final class ClassEntity extends LabeledEntity {
     private boolean complex;
 
@@ -38,4 +40,10 @@ public final class ClassEntity extends LabeledEntity {
         return complex;
     }
 
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        super.hashContent(hasher);
+        hasher.putBoolean(complex);
+    }
+
 }
@@ -26,6 +26,8 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
+
 public final class ContextEntity implements ContextId {
     private String id;
 
@@ -40,6 +42,11 @@ public final class ContextEntity implements ContextId {
         return id;
     }
 
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        hasher.putType(getClass()).putString(id);
+    }
+
     @Override
     public String toString() {
         return "Context{" +
@@ -26,6 +26,7 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
 import net.stargraph.data.processor.Hashable;
 
 import java.util.ArrayList;
@@ -91,6 +92,20 @@ public final class Document implements Hashable {
                 '}';
     }
 
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        hasher.putType(getClass()).putString(id).putString(title).putString(summary).putString(text);
+        hasher.putInt(passages.size());
+        for (Passage passage : passages) {
+            hasher.putString(passage.getText());
+            List<LabeledEntity> entities = passage.getEntities();
+            hasher.putInt(entities != null ? entities.size() : -1);
+            if (entities != null) {
+                entities.forEach(hasher::put);
+            }
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -26,6 +26,7 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
 import net.stargraph.data.processor.Hashable;
 
 import java.util.Objects;
@@ -74,6 +75,13 @@ public final class Fact implements Hashable {
                 "}";
     }
 
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        hasher.putType(getClass())
+                .putString(kbId.getId()).putString(kbId.getModel())
+                .put(subject).put(predicate).put(object);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -26,6 +26,8 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
+
 import java.util.Collection;
 
 public final class InstanceEntity extends LabeledEntity implements ContextId {
@@ -43,4 +45,10 @@ public final class InstanceEntity extends LabeledEntity implements ContextId {
     public Collection<String> getOtherValues() {
         return otherValues;
     }
+
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        super.hashContent(hasher);
+        hasher.putStrings(otherValues);
+    }
 }
@@ -26,6 +26,7 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
 import net.stargraph.data.processor.Hashable;
 import net.stargraph.rank.Rankable;
 
@@ -56,6 +57,11 @@ public abstract class LabeledEntity implements Hashable, Rankable {
         return value;
     }
 
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        hasher.putType(getClass()).putString(id).putString(value);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -26,6 +26,7 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
 import net.stargraph.data.processor.Hashable;
 import net.stargraph.model.wordnet.WNTuple;
 import net.stargraph.rank.Rankable;
@@ -86,6 +87,14 @@ public final class PropertyEntity implements Hashable, Rankable {
         return value;
     }
 
+    /**
+     * WordNet enrichment is derived from the label, hence not part of the content identity.
+     */
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        hasher.putType(getClass()).putString(id).putString(value);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -26,6 +26,8 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.data.processor.ContentHasher;
+
 public final class ValueEntity extends LabeledEntity {
     private String dataType;
     private String language;
@@ -50,4 +52,10 @@ public final class ValueEntity extends LabeledEntity {
     public String getLanguage() {
         return language;
     }
+
+    @Override
+    public void hashContent(ContentHasher hasher) {
+        super.hashContent(hasher);
+        hasher.putString(dataType).putString(language);
+    }
 }
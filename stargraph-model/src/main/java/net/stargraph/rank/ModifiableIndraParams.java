@@ -35,6 +35,8 @@ public final class ModifiableIndraParams extends ModifiableRankParams {
     private String corpus;
     private String language;
     private ScoreFunction scoreFunction;
+    private RelatednessCache cache;
+    private WordEmbeddings localVectors;
 
     public ModifiableIndraParams(Threshold threshold, RankingModel rankingModel) {
         super(threshold, rankingModel);
@@ -65,6 +67,19 @@ public final class ModifiableIndraParams extends ModifiableRankParams {
         return this;
     }
 
+    public ModifiableIndraParams cache(RelatednessCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Scores W2V with these vectors on this host instead of asking the service. ESA is always asked.
+     */
+    public ModifiableIndraParams localVectors(WordEmbeddings localVectors) {
+        this.localVectors = localVectors;
+        return this;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -81,6 +96,17 @@ public final class ModifiableIndraParams extends ModifiableRankParams {
         return scoreFunction;
     }
 
+    /**
+     * Scores already known, null when every score should be asked to the service.
+     */
+    public RelatednessCache getCache() {
+        return cache;
+    }
+
+    public WordEmbeddings getLocalVectors() {
+        return localVectors;
+    }
+
     @Override
     public String toString() {
         return "IndraParams{" +
@@ -88,6 +114,7 @@ public final class ModifiableIndraParams extends ModifiableRankParams {
                 ", corpus='" + corpus + '\'' +
                 ", language='" + language + '\'' +
                 ", scoreFunction='" + scoreFunction + '\'' +
+                ", local=" + (localVectors != null) +
                 ", threshold=" + this.getThreshold() +
                 '}';
     }
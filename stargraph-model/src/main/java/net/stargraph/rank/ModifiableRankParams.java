@@ -30,6 +30,7 @@ public class ModifiableRankParams {
 
     private Threshold threshold;
     private RankingModel rankingModel;
+    private int limit = -1;
 
     public ModifiableRankParams() {
         //
@@ -50,6 +51,14 @@ public class ModifiableRankParams {
         return this;
     }
 
+    /**
+     * At most this many of the best ranked entries are kept, all of them when negative.
+     */
+    public final ModifiableRankParams limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
     public final Threshold getThreshold() {
         return threshold;
     }
@@ -58,9 +67,13 @@ public class ModifiableRankParams {
         return rankingModel;
     }
 
+    public final int getLimit() {
+        return limit;
+    }
+
     @Override
     public String toString() {
-        return "RankParams{" + rankingModel + ", " + threshold + "}";
+        return "RankParams{" + rankingModel + ", " + threshold + (limit >= 0 ? ", limit=" + limit : "") + "}";
     }
 
 }
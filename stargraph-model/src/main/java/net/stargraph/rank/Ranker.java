@@ -30,4 +30,11 @@ public interface Ranker {
 
     Scores score(Scores inputScores, Rankable target);
 
+    /**
+     * Same as score but in no particular order, for callers that select what they need themselves.
+     */
+    default Scores scoreUnordered(Scores inputScores, Rankable target) {
+        return score(inputScores, target);
+    }
+
 }
@@ -33,33 +33,109 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import static net.stargraph.rank.Threshold.ThresholdType.AUTO;
+import static net.stargraph.rank.Threshold.ThresholdType.MIN;
+
 public final class Rankers {
     private static Logger logger = LoggerFactory.getLogger(Rankers.class);
     private static Marker marker = MarkerFactory.getMarker("rank");
+    private static final RankingStats stats = new RankingStats();
 
     public static Scores apply(Scores inputScores, ModifiableRankParams rankParams, String target) {
         return apply(inputScores, rankParams, asRankable(target));
     }
 
+    /**
+     * Ranks, thresholds and limits in one go, only sorting what the threshold and limit leave.
+     * Same outcome as ranking, applying ThresholdFilter and then taking the first entries.
+     */
     public static Scores apply(Scores inputScores, ModifiableRankParams rankParams, Rankable target) {
         logger.info(marker, "Applying {} on {} entries.", rankParams, inputScores.size());
         Ranker ranker = createRanker(rankParams);
-        Scores rescores = ranker.score(inputScores, target);
-        return ThresholdFilter.filter(rescores, rankParams.getThreshold());
+        Threshold threshold = rankParams.getThreshold();
+        int limit = rankParams.getLimit();
+
+        Scores rescores = ranker.scoreUnordered(inputScores, target);
+        final int scored = rescores.size();
+        final int thresholded;
+
+        if (threshold != null && threshold.type == AUTO) {
+            rescores.sort(true);
+            autoCut(rescores);
+            thresholded = rescores.size();
+            if (limit >= 0 && limit < thresholded) {
+                rescores.subList(limit, thresholded).clear();
+            }
+        } else {
+            if (threshold != null) {
+                rescores.retainValues(v -> threshold.type == MIN ? v > threshold.value : v < threshold.value);
+            }
+            thresholded = rescores.size();
+            if (limit >= 0 && limit < thresholded) {
+                rescores = rescores.top(limit);
+            } else {
+                rescores.sort(true);
+            }
+        }
+
+        if (scored > 0 && thresholded == 0) {
+            logger.warn(marker, "Nothing left. All filtered by ({})", threshold);
+        }
+        logger.debug(marker, "Pruned by ranker: {}, threshold: {}, limit: {}",
+                inputScores.size() - scored, scored - thresholded, thresholded - rescores.size());
+        stats.record(inputScores.size(), scored, thresholded, rescores.size());
+
+        return rescores;
+    }
+
+    public static RankingStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Cuts the sorted scores at the widest gap between consecutive values, see ThresholdFilter.
+     */
+    private static void autoCut(Scores scores) {
+        final int size = scores.size();
+        if (size < 3) {
+            return;
+        }
+
+        double max = Double.MIN_VALUE;
+        for (int i = 1; i < size; i++) {
+            double diff = scores.getValue(i - 1) - scores.getValue(i);
+            if (diff > max) {
+                max = diff;
+            }
+        }
+
+        logger.debug(marker, "AUTO threshold value is {}", max);
+
+        int cut = 1;
+        while (cut < size && scores.getValue(cut - 1) - scores.getValue(cut) < max) {
+            cut++;
+        }
+        scores.subList(cut, size).clear();
     }
 
     private static Ranker createRanker(ModifiableRankParams params) {
         switch (params.getRankingModel()) {
             case JACCARD:
-                return new JaccardRanker();
+                return new JaccardRanker(params.getThreshold());
             case JAROWINKLER:
-                return new JarowinklerRanker();
+                return new JarowinklerRanker(params.getThreshold());
             case LEVENSHTEIN:
-                return new LevenshteinRanker();
+                return new LevenshteinRanker(params.getThreshold());
             case FUZZY:
-                return new FuzzyRanker();
+                return new FuzzyRanker(params.getThreshold());
             case W2V:
+                ModifiableIndraParams w2vParams = (ModifiableIndraParams) params;
+                if (w2vParams.getLocalVectors() != null) {
+                    return new EmbeddingRanker(w2vParams.getLocalVectors());
+                }
+                return new IndraRanker(w2vParams);
             case ESA:
+                // Explicit semantic analysis has no counterpart in word vectors.
                 return new IndraRanker((ModifiableIndraParams) params);
         }
         throw new StarGraphException("Unknown Ranker!");
@@ -0,0 +1,91 @@
+package net.stargraph.rank;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How many candidates went through Rankers.apply and where the discarded ones were pruned.
+ */
+public final class RankingStats {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder prunedByRanker = new LongAdder();
+    private final LongAdder prunedByThreshold = new LongAdder();
+    private final LongAdder prunedByLimit = new LongAdder();
+
+    void record(int input, int scored, int thresholded, int output) {
+        calls.increment();
+        candidates.add(input);
+        prunedByRanker.add(input - scored);
+        prunedByThreshold.add(scored - thresholded);
+        prunedByLimit.add(thresholded - output);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+    /**
+     * Dropped while scoring, before any sorting, as the threshold is passed on to the ranker.
+     */
+    public long getPrunedByRanker() {
+        return prunedByRanker.sum();
+    }
+
+    public long getPrunedByThreshold() {
+        return prunedByThreshold.sum();
+    }
+
+    public long getPrunedByLimit() {
+        return prunedByLimit.sum();
+    }
+
+    public void reset() {
+        calls.reset();
+        candidates.reset();
+        prunedByRanker.reset();
+        prunedByThreshold.reset();
+        prunedByLimit.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "RankingStats{" +
+                "calls=" + getCalls() +
+                ", candidates=" + getCandidates() +
+                ", prunedByRanker=" + getPrunedByRanker() +
+                ", prunedByThreshold=" + getPrunedByThreshold() +
+                ", prunedByLimit=" + getPrunedByLimit() +
+                '}';
+    }
+}
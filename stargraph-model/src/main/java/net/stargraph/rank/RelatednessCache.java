@@ -0,0 +1,421 @@
+package net.stargraph.rank;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.StarGraphException;
+import net.stargraph.data.processor.ContentHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relatedness scores already computed by the distributional service.
+ * <p>
+ * A bounded in-memory LRU tier in front of an optional append-only log on disk. Only the offsets of the disk
+ * records are kept in memory, so the disk tier can hold much more than the memory one. The log is replayed on open,
+ * which also warms the memory tier with the most recent scores. Once the log outgrows its maximum size it is
+ * compacted down to half of it, keeping the most recent score of each pair and dropping the oldest ones. Thread-safe.
+ */
+public final class RelatednessCache implements Closeable {
+    private static final String LOG_FILE = "relatedness.log";
+    private static final long DEFAULT_MAX_DISK_BYTES = 256L * 1024 * 1024;
+
+    private static Logger logger = LoggerFactory.getLogger(RelatednessCache.class);
+    private static Marker marker = MarkerFactory.getMarker("rank");
+
+    private final Map<String, Double> memory;
+    private final Map<Long, Long> diskIndex;
+    private final File logFile;
+    private final long maxDiskBytes;
+    private volatile FileChannel channel;
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Memory only.
+     */
+    public RelatednessCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public RelatednessCache(int maxEntries, File dir) {
+        this(maxEntries, dir, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * @param maxEntries Scores kept in memory.
+     * @param dir Where the disk tier lives, null for memory only.
+     * @param maxDiskBytes Size of the log that triggers a compaction.
+     */
+    public RelatednessCache(int maxEntries, File dir, long maxDiskBytes) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive.");
+        }
+        if (maxDiskBytes <= 0) {
+            throw new IllegalArgumentException("maxDiskBytes must be positive.");
+        }
+        this.maxDiskBytes = maxDiskBytes;
+
+        this.memory = new LinkedHashMap<String, Double>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        if (dir == null) {
+            this.diskIndex = null;
+            this.logFile = null;
+            this.channel = null;
+        } else {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new StarGraphException("Can't create " + dir);
+            }
+            this.diskIndex = new HashMap<>();
+            this.logFile = new File(dir, LOG_FILE);
+            this.channel = open();
+        }
+    }
+
+    public static String key(ModifiableIndraParams params, String text, String target) {
+        return String.join("\u0001", params.getCorpus(), params.getRankingModel().name(),
+                params.getLanguage(), String.valueOf(params.getScoreFunction()), text, target);
+    }
+
+    public Double get(String key) {
+        Double score;
+        synchronized (memory) {
+            score = memory.get(key);
+        }
+
+        if (score != null) {
+            memoryHits.incrementAndGet();
+            return score;
+        }
+
+        score = readDisk(key);
+        if (score != null) {
+            diskHits.incrementAndGet();
+            synchronized (memory) {
+                memory.put(key, score);
+            }
+            return score;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, double score) {
+        synchronized (memory) {
+            memory.put(key, score);
+        }
+        writeDisk(key, score);
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public boolean isPersistent() {
+        return channel != null;
+    }
+
+    /**
+     * Forces the disk tier to the storage device.
+     */
+    public void flush() {
+        if (channel != null) {
+            synchronized (diskIndex) {
+                try {
+                    channel.force(false);
+                } catch (IOException e) {
+                    throw new StarGraphException("Fail to flush relatedness cache.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes and closes the disk tier, scores are neither read from nor written to disk afterwards.
+     */
+    @Override
+    public void close() {
+        if (channel != null) {
+            synchronized (diskIndex) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                } catch (IOException e) {
+                    throw new StarGraphException("Fail to close relatedness cache.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Size of the log on disk, 0 for memory only.
+     */
+    public long getDiskBytes() {
+        if (channel == null) {
+            return 0;
+        }
+        synchronized (diskIndex) {
+            try {
+                return channel.isOpen() ? channel.size() : 0;
+            } catch (IOException e) {
+                throw new StarGraphException(e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RelatednessCache{" +
+                "hitRate=" + String.format("%.3f", getHitRate()) +
+                ", memoryHits=" + memoryHits +
+                ", diskHits=" + diskHits +
+                ", misses=" + misses +
+                ", persistent=" + isPersistent() +
+                '}';
+    }
+
+    private FileChannel open() {
+        File file = logFile;
+        try {
+            FileChannel ch = new RandomAccessFile(file, "rw").getChannel();
+            long valid = replay(ch);
+            if (valid < ch.size()) {
+                logger.warn(marker, "Discarding {} bytes of a partial record in {}", ch.size() - valid, file);
+                ch.truncate(valid);
+            }
+            ch.position(valid);
+            logger.info(marker, "Relatedness cache '{}': {} scores on disk.", file, diskIndex.size());
+            return ch;
+        } catch (IOException e) {
+            throw new StarGraphException("Can't open " + file, e);
+        }
+    }
+
+    /**
+     * Builds the disk index from the log and returns the length of its valid part.
+     */
+    private long replay(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        long pos = 0;
+        final long size = ch.size();
+        while (pos + Integer.BYTES <= size) {
+            header.clear();
+            ch.read(header, pos);
+            header.flip();
+            int keyLength = header.getInt();
+            long recordLength = Integer.BYTES + (long) keyLength + Double.BYTES;
+            if (keyLength < 0 || pos + recordLength > size) {
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(keyLength + Double.BYTES);
+            ch.read(record, pos + Integer.BYTES);
+            record.flip();
+            byte[] keyBytes = new byte[keyLength];
+            record.get(keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            double score = record.getDouble();
+
+            diskIndex.put(hash(key), pos);
+            memory.put(key, score);
+            pos += recordLength;
+        }
+        return pos;
+    }
+
+    private Double readDisk(String key) {
+        if (channel == null) {
+            return null;
+        }
+
+        Long pos;
+        FileChannel ch;
+        synchronized (diskIndex) {
+            pos = diskIndex.get(hash(key));
+            ch = channel;
+        }
+        if (pos == null) {
+            return null;
+        }
+
+        try {
+            byte[] expected = key.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + expected.length + Double.BYTES);
+            ch.read(record, pos);
+            record.flip();
+            if (record.remaining() < record.capacity() || record.getInt() != expected.length) {
+                return null;
+            }
+            for (byte b : expected) {
+                if (record.get() != b) {
+                    return null; // Hash collision.
+                }
+            }
+            return record.getDouble();
+        } catch (ClosedChannelException e) {
+            return null; // Replaced by a compaction or closed.
+        } catch (IOException e) {
+            logger.warn(marker, "Fail reading relatedness cache.", e);
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, double score) {
+        if (channel == null) {
+            return;
+        }
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + keyBytes.length + Double.BYTES);
+        record.putInt(keyBytes.length).put(keyBytes).putDouble(score).flip();
+
+        synchronized (diskIndex) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                long pos = channel.position();
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+                diskIndex.put(hash(key), pos);
+                if (channel.position() > maxDiskBytes) {
+                    compact();
+                }
+            } catch (IOException e) {
+                logger.warn(marker, "Fail writing relatedness cache.", e);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the newest live records, those still indexed, up to half of the maximum size and swaps the log.
+     * Called holding the disk index lock.
+     */
+    private void compact() throws IOException {
+        long start = System.currentTimeMillis();
+        long before = channel.size();
+
+        // Live records in log order: offset, length and key hash.
+        List<long[]> live = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        for (long pos = 0; pos + Integer.BYTES <= before; ) {
+            header.clear();
+            channel.read(header, pos);
+            header.flip();
+            int keyLength = header.getInt();
+            long recordLength = Integer.BYTES + (long) keyLength + Double.BYTES;
+            ByteBuffer keyBytes = ByteBuffer.allocate(keyLength);
+            channel.read(keyBytes, pos + Integer.BYTES);
+            long hash = hash(new String(keyBytes.array(), StandardCharsets.UTF_8));
+            if (Long.valueOf(pos).equals(diskIndex.get(hash))) {
+                live.add(new long[] {pos, recordLength, hash});
+            }
+            pos += recordLength;
+        }
+
+        int first = live.size();
+        long kept = 0;
+        while (first > 0 && kept + live.get(first - 1)[1] <= maxDiskBytes / 2) {
+            kept += live.get(--first)[1];
+        }
+
+        File tmp = new File(logFile.getPath() + ".tmp");
+        Map<Long, Long> index = new HashMap<>();
+        try (FileChannel out = new RandomAccessFile(tmp, "rw").getChannel()) {
+            out.truncate(0);
+            for (long[] record : live.subList(first, live.size())) {
+                index.put(record[2], out.position());
+                long written = 0;
+                while (written < record[1]) {
+                    written += channel.transferTo(record[0] + written, record[1] - written, out);
+                }
+            }
+            out.force(false);
+        }
+
+        channel.close();
+        Files.move(tmp.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        diskIndex.clear();
+        diskIndex.putAll(index);
+        FileChannel compacted = new RandomAccessFile(logFile, "rw").getChannel();
+        compacted.position(compacted.size());
+        channel = compacted;
+
+        logger.info(marker, "Relatedness cache compacted from {} to {} bytes, {} scores dropped, took {}ms.",
+                before, kept, live.size() - index.size(), System.currentTimeMillis() - start);
+    }
+
+    private static long hash(String key) {
+        byte[] hash = new ContentHasher().putString(key).hash();
+        long h = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            h = (h << 8) | (hash[i] & 0xFF);
+        }
+        return h;
+    }
+}
@@ -26,28 +26,322 @@ package net.stargraph.rank;
  * ==========================License-End===============================
  */
 
-import java.util.ArrayList;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.RandomAccess;
+import java.util.function.DoublePredicate;
 
-public final class Scores extends ArrayList<Score> {
+/**
+ * Entries and their values are kept in parallel arrays, the Score instances seen through the List API are views.
+ */
+public final class Scores extends AbstractList<Score> implements RandomAccess {
+    // Runs below this are insertion sorted before merging.
+    private static final int RUN = 32;
+
+    private Serializable[] entries;
+    private double[] values;
+    private int size;
 
     public Scores(int initialCapacity) {
-        super(initialCapacity);
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        }
+        this.entries = new Serializable[initialCapacity];
+        this.values = new double[initialCapacity];
     }
 
     public Scores() {
-        super();
+        this(10);
     }
 
     public Scores(Collection<? extends Score> c) {
-        super(c);
+        this(c.size());
+        addAll(c);
+    }
+
+    public boolean add(Serializable entry, double value) {
+        if (entry == null) {
+            throw new IllegalArgumentException("Entry can't null.");
+        }
+        ensureCapacity(size + 1);
+        entries[size] = entry;
+        values[size] = value;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    public Serializable getEntry(int index) {
+        checkIndex(index);
+        return entries[index];
+    }
+
+    public Rankable getRankableView(int index) {
+        return (Rankable) getEntry(index);
+    }
+
+    public double getValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    public Score get(int index) {
+        checkIndex(index);
+        return new Score(entries[index], values[index]);
     }
 
+    @Override
+    public Score set(int index, Score score) {
+        Score previous = get(index);
+        entries[index] = score.getEntry();
+        values[index] = score.getValue();
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Score score) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(entries, index, entries, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        entries[index] = score.getEntry();
+        values[index] = score.getValue();
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Score remove(int index) {
+        Score previous = get(index);
+        int moved = size - index - 1;
+        System.arraycopy(entries, index + 1, entries, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        entries[--size] = null;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        System.arraycopy(entries, toIndex, entries, fromIndex, size - toIndex);
+        System.arraycopy(values, toIndex, values, fromIndex, size - toIndex);
+        int newSize = size - (toIndex - fromIndex);
+        Arrays.fill(entries, newSize, size, null);
+        size = newSize;
+        modCount++;
+    }
+
+    /**
+     * Keeps, in place and in order, the entries whose value is accepted.
+     *
+     * @return How many were removed.
+     */
+    public int retainValues(DoublePredicate predicate) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (predicate.test(values[i])) {
+                entries[kept] = entries[i];
+                values[kept++] = values[i];
+            }
+        }
+        int removed = size - kept;
+        if (removed > 0) {
+            Arrays.fill(entries, kept, size, null);
+            size = kept;
+            modCount++;
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(entries, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > entries.length) {
+            int capacity = Math.max(minCapacity, entries.length + (entries.length >> 1) + 1);
+            entries = Arrays.copyOf(entries, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * Stable, ties in reversed order when reversed as Collections.sort followed by Collections.reverse would leave them.
+     */
     public void sort(boolean reversed) {
-        Collections.sort(this);
         if (reversed) {
-            Collections.reverse(this);
+            reverse();
+        }
+        mergeSort(reversed);
+        modCount++;
+    }
+
+    /**
+     * The k highest scores in the order sort(true) would put them, selected through a bounded heap.
+     */
+    public Scores top(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k can't be negative: " + k);
+        }
+        final int n = Math.min(k, size);
+        Scores top = new Scores(n);
+        if (n == 0) {
+            return top;
+        }
+
+        // Min-heap of the best n seen so far, the root is the one to be evicted first.
+        int[] heap = new int[n];
+        int heapSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (heapSize < n) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++);
+            } else if (before(i, heap[0])) {
+                heap[0] = i;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        top.size = n;
+        while (heapSize > 0) {
+            int index = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            top.entries[heapSize] = entries[index];
+            top.values[heapSize] = values[index];
+        }
+        return top;
+    }
+
+    /**
+     * Whether i goes before j when sorted descending, the later one going first on ties.
+     */
+    private boolean before(int i, int j) {
+        int c = Double.compare(values[i], values[j]);
+        return c > 0 || (c == 0 && i > j);
+    }
+
+    private void siftUp(int[] heap, int pos) {
+        int index = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!before(heap[parent], index)) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = index;
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int pos = 0;
+        int index = heap[0];
+        int half = heapSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < heapSize && before(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!before(index, heap[child])) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = index;
+    }
+
+    private void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            Serializable entry = entries[i];
+            entries[i] = entries[j];
+            entries[j] = entry;
+            double value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    private boolean inOrder(double a, double b, boolean descending) {
+        int c = Double.compare(a, b);
+        return descending ? c >= 0 : c <= 0;
+    }
+
+    private void mergeSort(boolean descending) {
+        for (int lo = 0; lo < size; lo += RUN) {
+            insertionSort(lo, Math.min(lo + RUN, size), descending);
+        }
+        if (size <= RUN) {
+            return;
+        }
+
+        Serializable[] entryBuffer = new Serializable[size];
+        double[] valueBuffer = new double[size];
+        Serializable[] srcEntries = entries;
+        double[] srcValues = values;
+
+        for (int width = RUN; width < size; width *= 2) {
+            for (int lo = 0; lo < size; lo += 2 * width) {
+                int mid = Math.min(lo + width, size);
+                int hi = Math.min(lo + 2 * width, size);
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    if (i < mid && (j >= hi || inOrder(srcValues[i], srcValues[j], descending))) {
+                        entryBuffer[k] = srcEntries[i];
+                        valueBuffer[k] = srcValues[i++];
+                    } else {
+                        entryBuffer[k] = srcEntries[j];
+                        valueBuffer[k] = srcValues[j++];
+                    }
+                }
+            }
+            Serializable[] entrySwap = srcEntries;
+            srcEntries = entryBuffer;
+            entryBuffer = entrySwap;
+            double[] valueSwap = srcValues;
+            srcValues = valueBuffer;
+            valueBuffer = valueSwap;
+        }
+
+        if (srcEntries != entries) {
+            System.arraycopy(srcEntries, 0, entries, 0, size);
+            System.arraycopy(srcValues, 0, values, 0, size);
+        }
+    }
+
+    private void insertionSort(int lo, int hi, boolean descending) {
+        for (int i = lo + 1; i < hi; i++) {
+            Serializable entry = entries[i];
+            double value = values[i];
+            int j = i - 1;
+            while (j >= lo && !inOrder(values[j], value, descending)) {
+                entries[j + 1] = entries[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            entries[j + 1] = entry;
+            values[j + 1] = value;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
         }
     }
 }
@@ -34,7 +34,6 @@ import org.slf4j.MarkerFactory;
 
 import java.util.Iterator;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static net.stargraph.rank.Threshold.ThresholdType.MIN;
 
@@ -92,9 +91,12 @@ public final class ThresholdFilter {
 
             case MIN:
             case MAX:
-                filtered = new Scores(inputScores.stream().
-                        filter(s -> threshold.type == MIN ? s.getValue() > threshold.value : s.getValue() < threshold.value)
-                        .collect(Collectors.toList()));
+                for (int i = 0; i < inputScores.size(); i++) {
+                    double value = inputScores.getValue(i);
+                    if (threshold.type == MIN ? value > threshold.value : value < threshold.value) {
+                        filtered.add(inputScores.getEntry(i), value);
+                    }
+                }
                 break;
 
             default:
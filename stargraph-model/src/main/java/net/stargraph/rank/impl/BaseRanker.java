@@ -43,9 +43,19 @@ abstract class BaseRanker implements Ranker {
     public final Scores score(Scores inputScores, Rankable target) {
         logger.trace(marker, "Target: '{}', input: {}", target.getValue(), inputScores);
         Scores rescore = doScore(inputScores, target);
+        rescore.sort(true);
         logger.trace(marker, "Target: '{}', output: {}", target.getValue(), rescore);
         return rescore;
     }
 
+    @Override
+    public final Scores scoreUnordered(Scores inputScores, Rankable target) {
+        logger.trace(marker, "Target: '{}', input: {}", target.getValue(), inputScores);
+        return doScore(inputScores, target);
+    }
+
+    /**
+     * Entries that can't pass the threshold given to the ranker may be left out, order doesn't matter.
+     */
     abstract Scores doScore(Scores inputScores, Rankable target);
 }
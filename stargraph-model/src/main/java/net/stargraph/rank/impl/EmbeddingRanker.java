@@ -0,0 +1,69 @@
+package net.stargraph.rank.impl;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.rank.Rankable;
+import net.stargraph.rank.Scores;
+import net.stargraph.rank.WordEmbeddings;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Distributional ranker backed by local word vectors instead of the remote service.
+ * Multi-word labels are scored through the normalized sum of their word vectors, unknown labels score 0.
+ */
+public final class EmbeddingRanker extends BaseRanker {
+    private WordEmbeddings vectors;
+
+    public EmbeddingRanker(WordEmbeddings vectors) {
+        this.vectors = Objects.requireNonNull(vectors);
+    }
+
+    @Override
+    Scores doScore(Scores inputScores, Rankable target) {
+        float[] targetVector = vectors.phrase(target.getValue());
+        Map<String, Double> scored = new HashMap<>(inputScores.size() * 2);
+
+        Scores rescored = new Scores(inputScores.size());
+        for (int i = 0; i < inputScores.size(); i++) {
+            String value = inputScores.getRankableView(i).getValue();
+            Double relatedness = scored.computeIfAbsent(value, v -> {
+                if (targetVector == null) {
+                    return 0.0;
+                }
+                float[] vector = vectors.phrase(v);
+                return vector != null ? WordVectors.cosine(targetVector, vector) : 0.0;
+            });
+            rescored.add(inputScores.getEntry(i), relatedness);
+        }
+
+        return rescored;
+    }
+}
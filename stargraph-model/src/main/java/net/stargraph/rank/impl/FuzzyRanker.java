@@ -26,14 +26,22 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
-import org.apache.commons.lang3.StringUtils;
+import net.stargraph.rank.Threshold;
 
 import java.util.Locale;
 
 public final class FuzzyRanker extends StringDistanceRanker {
 
+    public FuzzyRanker() {
+        this(null);
+    }
+
+    public FuzzyRanker(Threshold threshold) {
+        super(threshold);
+    }
+
     @Override
     double computeStringDistance(CharSequence s1, CharSequence s2) {
-        return StringUtils.getFuzzyDistance(s1, s2, Locale.getDefault());
+        return StringDistances.fuzzy(s1, s2, Locale.getDefault());
     }
 }
@@ -0,0 +1,182 @@
+package net.stargraph.rank.impl;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.StarGraphException;
+import net.stargraph.rank.ModifiableIndraParams;
+import net.stargraph.rank.RelatednessCache;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.lambda3.indra.client.RelatednessRequest;
+import org.lambda3.indra.client.RelatednessResponse;
+import org.lambda3.indra.client.TextPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived client of one Indra relatedness endpoint. The underlying HTTP connections are kept alive and reused
+ * by all rankers, repeated texts are sent only once and large requests are split into concurrent sub-batches.
+ * Thread-safe.
+ */
+public final class IndraClient implements Closeable {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static Logger logger = LoggerFactory.getLogger(IndraClient.class);
+    private static Marker marker = MarkerFactory.getMarker("rank");
+    private static final Map<String, IndraClient> clients = new ConcurrentHashMap<>();
+
+    private final String url;
+    private final int batchSize;
+    private final Client client;
+    private final WebTarget webTarget;
+    private final ExecutorService executor;
+
+    public IndraClient(String url, int batchSize, int concurrency) {
+        if (batchSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("Batch size and concurrency must be positive.");
+        }
+        this.url = Objects.requireNonNull(url);
+        this.batchSize = batchSize;
+        this.client = ClientBuilder.newClient().register(JacksonFeature.class);
+        this.webTarget = client.target(url);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "indra-client-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * The client shared by everyone talking to the given endpoint.
+     */
+    public static IndraClient forEndpoint(String url) {
+        return clients.computeIfAbsent(Objects.requireNonNull(url),
+                u -> new IndraClient(u, DEFAULT_BATCH_SIZE, DEFAULT_CONCURRENCY));
+    }
+
+    /**
+     * Relatedness of each distinct text against the target. Texts missing from the service response are absent.
+     * Scores found in the cache of the params are not requested again, the requested ones are added to it.
+     */
+    public Map<String, Double> relatedness(ModifiableIndraParams params, Collection<String> texts, String target) {
+        Set<String> distinct = new LinkedHashSet<>(texts);
+        Map<String, Double> scores = new HashMap<>(distinct.size() * 2);
+        RelatednessCache cache = params.getCache();
+
+        List<String> missing = new ArrayList<>(distinct.size());
+        for (String text : distinct) {
+            Double score = cache != null ? cache.get(RelatednessCache.key(params, text, target)) : null;
+            if (score != null) {
+                scores.put(text, score);
+            } else {
+                missing.add(text);
+            }
+        }
+
+        logger.debug(marker, "Relatedness of {} texts against '{}': {} distinct, {} requested.",
+                texts.size(), target, distinct.size(), missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<String, Double> requested = request(params, missing, target);
+            if (cache != null) {
+                requested.forEach((text, score) -> cache.put(RelatednessCache.key(params, text, target), score));
+            }
+            scores.putAll(requested);
+        }
+
+        return scores;
+    }
+
+    @Override
+    public void close() {
+        clients.remove(url, this);
+        executor.shutdownNow();
+        client.close();
+    }
+
+    private Map<String, Double> request(ModifiableIndraParams params, List<String> distinct, String target) {
+        if (distinct.size() <= batchSize) {
+            return post(params, distinct, target);
+        }
+
+        Map<String, Double> scores = new HashMap<>(distinct.size() * 2);
+
+        List<Future<Map<String, Double>>> batches = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            List<String> batch = distinct.subList(from, Math.min(from + batchSize, distinct.size()));
+            batches.add(executor.submit(() -> post(params, batch, target)));
+        }
+
+        try {
+            for (Future<Map<String, Double>> batch : batches) {
+                scores.putAll(batch.get());
+            }
+        } catch (InterruptedException e) {
+            batches.forEach(b -> b.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new StarGraphException("Interrupted while waiting on " + url, e);
+        } catch (ExecutionException e) {
+            batches.forEach(b -> b.cancel(true));
+            throw new StarGraphException("Relatedness request failed: " + url, e.getCause());
+        }
+
+        return scores;
+    }
+
+    private Map<String, Double> post(ModifiableIndraParams params, List<String> texts, String target) {
+        List<TextPair> pairs = new ArrayList<>(texts.size());
+        texts.forEach(text -> pairs.add(new TextPair(text, target)));
+
+        RelatednessRequest request = new RelatednessRequest()
+                .corpus(params.getCorpus())
+                .language(params.getLanguage())
+                .scoreFunction(params.getScoreFunction())
+                .model(params.getRankingModel().name())
+                .pairs(pairs);
+
+        RelatednessResponse response = webTarget.request()
+                .post(Entity.entity(request, MediaType.APPLICATION_JSON_TYPE), RelatednessResponse.class);
+
+        Map<String, Double> scores = new HashMap<>(texts.size() * 2);
+        response.getPairs().forEach(p -> scores.put(p.t1, p.score));
+        return scores;
+    }
+}
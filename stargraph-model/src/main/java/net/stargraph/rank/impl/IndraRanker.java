@@ -28,60 +28,43 @@ package net.stargraph.rank.impl;
 
 import net.stargraph.rank.ModifiableIndraParams;
 import net.stargraph.rank.Rankable;
-import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
-import org.glassfish.jersey.jackson.JacksonFeature;
-import org.lambda3.indra.client.RelatednessRequest;
-import org.lambda3.indra.client.RelatednessResponse;
-import org.lambda3.indra.client.TextPair;
 
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 public final class IndraRanker extends BaseRanker {
     private ModifiableIndraParams params;
-    private Client client;
-
+    private IndraClient client;
 
     public IndraRanker(ModifiableIndraParams params) {
+        this(params, IndraClient.forEndpoint(params.getUrl()));
+    }
+
+    public IndraRanker(ModifiableIndraParams params, IndraClient client) {
         this.params = Objects.requireNonNull(params);
-        client = ClientBuilder.newClient().register(JacksonFeature.class);
+        this.client = Objects.requireNonNull(client);
     }
 
     @Override
     Scores doScore(Scores inputScores, Rankable target) {
-        List<TextPair> pairs = inputScores.stream()
-                .map(score -> new TextPair(score.getRankableView().getValue(), target.getValue()))
-                .collect(Collectors.toList());
+        List<String> texts = new ArrayList<>(inputScores.size());
+        for (int i = 0; i < inputScores.size(); i++) {
+            texts.add(inputScores.getRankableView(i).getValue());
+        }
 
-        RelatednessRequest request = new RelatednessRequest()
-                .corpus(params.getCorpus())
-                .language(params.getLanguage())
-                .scoreFunction(params.getScoreFunction())
-                .model(params.getRankingModel().name())
-                .pairs(pairs);
-
-        WebTarget webTarget = client.target(params.getUrl());
-        RelatednessResponse response = webTarget.request()
-                .post(Entity.entity(request, MediaType.APPLICATION_JSON_TYPE), RelatednessResponse.class);
+        Map<String, Double> relatedness = client.relatedness(params, texts, target.getValue());
 
         Scores rescored = new Scores(inputScores.size());
-        response.getPairs().forEach(p -> rescored.addAll(find(inputScores, p.t1, p.score)));
+        for (int i = 0; i < inputScores.size(); i++) {
+            Double value = relatedness.get(texts.get(i));
+            if (value != null) {
+                rescored.add(inputScores.getEntry(i), value);
+            }
+        }
 
-        rescored.sort(true);
         return rescored;
     }
-
-    private List<Score> find(Scores scores, String text, double v) {
-        return scores.stream()
-                .map(Score::getRankableView)
-                .filter(s -> s.getValue().equals(text))
-                .map(r -> new Score(r, v)).collect(Collectors.toList());
-    }
 }
@@ -26,14 +26,20 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
-import org.apache.commons.text.beta.similarity.JaccardDistance;
+import net.stargraph.rank.Threshold;
 
 public final class JaccardRanker extends StringDistanceRanker {
 
-    private JaccardDistance jaccardDistance = new JaccardDistance();
+    public JaccardRanker() {
+        this(null);
+    }
+
+    public JaccardRanker(Threshold threshold) {
+        super(threshold);
+    }
 
     @Override
     double computeStringDistance(CharSequence s1, CharSequence s2) {
-        return jaccardDistance.apply(s1, s2);
+        return StringDistances.jaccard(s1, s2);
     }
 }
@@ -26,12 +26,20 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
-import org.apache.commons.lang3.StringUtils;
+import net.stargraph.rank.Threshold;
 
 public final class JarowinklerRanker extends StringDistanceRanker {
 
+    public JarowinklerRanker() {
+        this(null);
+    }
+
+    public JarowinklerRanker(Threshold threshold) {
+        super(threshold);
+    }
+
     @Override
     double computeStringDistance(CharSequence s1, CharSequence s2) {
-        return StringUtils.getJaroWinklerDistance(s1, s2);
+        return StringDistances.jaroWinkler(s1, s2);
     }
 }
@@ -26,12 +26,52 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
-import org.apache.commons.lang3.StringUtils;
+import net.stargraph.rank.Threshold;
+
+import static net.stargraph.rank.Threshold.ThresholdType.MIN;
 
 public final class LevenshteinRanker extends StringDistanceRanker {
+    private final int maxDistance;
+
+    public LevenshteinRanker() {
+        this(null);
+    }
+
+    public LevenshteinRanker(Threshold threshold) {
+        super(threshold);
+        this.maxDistance = maxDistance(threshold);
+    }
 
     @Override
     double computeStringDistance(CharSequence s1, CharSequence s2) {
-        return StringUtils.getLevenshteinDistance(s1, s2);
+        return StringDistances.levenshtein(s1, s2, -1);
+    }
+
+    @Override
+    double score(CharSequence s1, CharSequence s2) {
+        int distance = StringDistances.levenshtein(s1, s2, maxDistance);
+        return distance < 0 ? Double.NaN : 1.0 / (distance + 1);
+    }
+
+    /**
+     * Largest distance whose score still passes a MIN threshold, -1 when unbounded.
+     */
+    static int maxDistance(Threshold threshold) {
+        if (threshold == null || threshold.type != MIN || threshold.value <= 0) {
+            return -1;
+        }
+        if (threshold.value >= 1) {
+            return 0; // Nothing passes, the ranker discards it.
+        }
+
+        long k = Math.max(0, (long) Math.ceil(1 / threshold.value - 1) - 1);
+        // Settles rounding, the score computation is the reference.
+        while (k > 0 && !(1.0 / (k + 1) > threshold.value)) {
+            k--;
+        }
+        while (1.0 / (k + 2) > threshold.value) {
+            k++;
+        }
+        return (int) Math.min(k, Integer.MAX_VALUE - 1);
     }
 }
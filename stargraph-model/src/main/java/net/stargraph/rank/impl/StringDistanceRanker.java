@@ -27,23 +27,67 @@ package net.stargraph.rank.impl;
  */
 
 import net.stargraph.rank.Rankable;
-import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
+import net.stargraph.rank.Threshold;
+
+import java.util.stream.IntStream;
 
 public abstract class StringDistanceRanker extends BaseRanker {
+    // Below this the fork/join overhead outweighs computing the distances in parallel.
+    static final int PARALLEL_THRESHOLD = 2048;
+
+    private final Threshold threshold;
 
+    StringDistanceRanker(Threshold threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Entries discarded by the threshold are left out right away, as ThresholdFilter would afterwards.
+     */
     @Override
     final Scores doScore(Scores inputScores, Rankable target) {
-        Scores rescored = new Scores(inputScores.size());
+        final int size = inputScores.size();
+        final String targetValue = target.getValue();
+        final double[] values = new double[size];
+
+        IntStream indexes = IntStream.range(0, size);
+        (size >= PARALLEL_THRESHOLD ? indexes.parallel() : indexes)
+                .forEach(i -> values[i] = score(inputScores.getRankableView(i).getValue(), targetValue));
 
-        inputScores.forEach(score -> {
-            double dist = 1.0 / (computeStringDistance(score.getRankableView().getValue(), target.getValue()) + 1);
-            rescored.add(new Score(score.getEntry(), dist));
-        });
+        Scores rescored = new Scores(size);
+        for (int i = 0; i < size; i++) {
+            if (accept(values[i])) {
+                rescored.add(inputScores.getEntry(i), values[i]);
+            }
+        }
 
-        rescored.sort(true);
         return rescored;
     }
 
+    /**
+     * NaN when the entry can't pass the threshold.
+     */
+    double score(CharSequence s1, CharSequence s2) {
+        return 1.0 / (computeStringDistance(s1, s2) + 1);
+    }
+
     abstract double computeStringDistance(CharSequence s1, CharSequence s2);
+
+    private boolean accept(double value) {
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        if (threshold == null) {
+            return true;
+        }
+        switch (threshold.type) {
+            case MIN:
+                return value > threshold.value;
+            case MAX:
+                return value < threshold.value;
+            default:
+                return true;
+        }
+    }
 }
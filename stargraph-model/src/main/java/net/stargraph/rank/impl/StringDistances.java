@@ -0,0 +1,343 @@
+package net.stargraph.rank.impl;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import java.util.Locale;
+
+/**
+ * Allocation-free string distances giving the same results as the commons-lang / commons-text implementations
+ * the rankers used before. Working arrays are reused per thread.
+ */
+final class StringDistances {
+    private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private StringDistances() {
+        // static only
+    }
+
+    /**
+     * Levenshtein distance, or -1 when it is larger than maxDistance. Only the diagonal band that can stay within
+     * maxDistance is computed and it gives up as soon as the whole band is past it. Negative maxDistance is unbounded.
+     */
+    static int levenshtein(CharSequence s, CharSequence t, int maxDistance) {
+        int n = s.length();
+        int m = t.length();
+        if (n > m) {
+            CharSequence tmp = s;
+            s = t;
+            t = tmp;
+            n = m;
+            m = t.length();
+        }
+
+        final int k = maxDistance < 0 ? m : Math.min(maxDistance, m);
+        if (m - n > k) {
+            return -1;
+        }
+        if (n == 0) {
+            return m;
+        }
+
+        Buffers b = buffers.get();
+        final char[] sc = b.chars(0, s);
+        if (k >= m) {
+            return levenshtein(sc, n, t, m, b.ints(0, n + 1));
+        }
+
+        int[] previous = b.ints(0, n + 1);
+        int[] current = b.ints(1, n + 1);
+        final int outside = Integer.MAX_VALUE / 2;
+
+        final int boundary = Math.min(n, k) + 1;
+        for (int i = 0; i < boundary; i++) {
+            previous[i] = i;
+        }
+        for (int i = boundary; i <= n; i++) {
+            previous[i] = outside;
+        }
+
+        for (int j = 1; j <= m; j++) {
+            final char tj = t.charAt(j - 1);
+            current[0] = j;
+
+            final int min = Math.max(1, j - k);
+            final int max = Math.min(n, j + k);
+            if (min > max) {
+                return -1;
+            }
+            if (min > 1) {
+                current[min - 1] = outside;
+            }
+
+            int rowMin = min == 1 ? j : outside;
+            for (int i = min; i <= max; i++) {
+                int d = sc[i - 1] == tj ? previous[i - 1] : 1 + Math.min(Math.min(current[i - 1], previous[i]), previous[i - 1]);
+                current[i] = d;
+                if (d < rowMin) {
+                    rowMin = d;
+                }
+            }
+            if (max < n) {
+                current[max + 1] = outside;
+            }
+            if (rowMin > k) {
+                return -1;
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[n] <= k ? previous[n] : -1;
+    }
+
+    /**
+     * Unbounded, a single row is enough.
+     */
+    private static int levenshtein(char[] s, int n, CharSequence t, int m, int[] row) {
+        for (int i = 0; i <= n; i++) {
+            row[i] = i;
+        }
+        for (int j = 1; j <= m; j++) {
+            final char tj = t.charAt(j - 1);
+            int upperLeft = row[0];
+            row[0] = j;
+            for (int i = 1; i <= n; i++) {
+                final int upper = row[i];
+                final int cost = s[i - 1] == tj ? 0 : 1;
+                row[i] = Math.min(Math.min(row[i - 1], upper) + 1, upperLeft + cost);
+                upperLeft = upper;
+            }
+        }
+        return row[n];
+    }
+
+    /**
+     * Same as StringUtils#getJaroWinklerDistance, which is in fact the similarity rounded to two decimals.
+     */
+    static double jaroWinkler(CharSequence first, CharSequence second) {
+        CharSequence max = first.length() > second.length() ? first : second;
+        CharSequence min = max == first ? second : first;
+        final int range = Math.max(max.length() / 2 - 1, 0);
+
+        Buffers b = buffers.get();
+        int[] matchIndexes = b.ints(0, min.length());
+        boolean[] matchFlags = b.flags(max.length());
+
+        int matches = 0;
+        for (int mi = 0; mi < min.length(); mi++) {
+            matchIndexes[mi] = -1;
+            final char c1 = min.charAt(mi);
+            for (int xi = Math.max(mi - range, 0), xn = Math.min(mi + range + 1, max.length()); xi < xn; xi++) {
+                if (!matchFlags[xi] && c1 == max.charAt(xi)) {
+                    matchIndexes[mi] = xi;
+                    matchFlags[xi] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+
+        // Walks the matched characters of both strings in order, instead of copying them out.
+        int transpositions = 0;
+        for (int i = 0, xi = 0; i < min.length(); i++) {
+            if (matchIndexes[i] != -1) {
+                while (!matchFlags[xi]) {
+                    xi++;
+                }
+                if (min.charAt(i) != max.charAt(xi)) {
+                    transpositions++;
+                }
+                xi++;
+            }
+        }
+
+        for (int i = 0; i < max.length(); i++) {
+            matchFlags[i] = false;
+        }
+
+        int prefix = 0;
+        for (int mi = 0; mi < min.length(); mi++) {
+            if (first.charAt(mi) == second.charAt(mi)) {
+                prefix++;
+            } else {
+                break;
+            }
+        }
+
+        if (matches == 0) {
+            return 0d;
+        }
+        final double m = matches;
+        final double j = (m / first.length() + m / second.length() + (m - transpositions / 2) / m) / 3;
+        final double jw = j < 0.7d ? j : j + Math.min(0.1d, 1d / max.length()) * prefix * (1d - j);
+        return Math.round(jw * 100.0d) / 100.0d;
+    }
+
+    /**
+     * Same as StringUtils#getFuzzyDistance. Lower-cases char by char when that is known to give the same
+     * result as String#toLowerCase in the given locale, which is ASCII outside of Turkish, Azeri and Lithuanian.
+     */
+    static int fuzzy(CharSequence term, CharSequence query, Locale locale) {
+        if (!isAsciiSafe(term, locale) || !isAsciiSafe(query, locale)) {
+            term = term.toString().toLowerCase(locale);
+            query = query.toString().toLowerCase(locale);
+        }
+
+        int score = 0;
+        int termIndex = 0;
+        int previousMatchingCharacterIndex = Integer.MIN_VALUE;
+
+        for (int queryIndex = 0; queryIndex < query.length(); queryIndex++) {
+            final char queryChar = toLowerAscii(query.charAt(queryIndex));
+            boolean termCharacterMatchFound = false;
+            for (; termIndex < term.length() && !termCharacterMatchFound; termIndex++) {
+                if (queryChar == toLowerAscii(term.charAt(termIndex))) {
+                    score++;
+                    if (previousMatchingCharacterIndex + 1 == termIndex) {
+                        score += 2;
+                    }
+                    previousMatchingCharacterIndex = termIndex;
+                    termCharacterMatchFound = true;
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Same as JaccardDistance, over the distinct chars of each string.
+     */
+    static double jaccard(CharSequence left, CharSequence right) {
+        final int leftLength = left.length();
+        final int rightLength = right.length();
+        if (leftLength == 0 && rightLength == 0) {
+            return 1d - 1d;
+        }
+        if (leftLength == 0 || rightLength == 0) {
+            return 1d - 0d;
+        }
+
+        Buffers b = buffers.get();
+        final int inLeft = b.nextStamp();
+        final int inRight = inLeft + 1;
+        int[] stamps = b.stamps;
+
+        int leftSize = 0;
+        for (int i = 0; i < leftLength; i++) {
+            char c = left.charAt(i);
+            if (stamps[c] != inLeft) {
+                stamps[c] = inLeft;
+                leftSize++;
+            }
+        }
+
+        int rightSize = 0;
+        int intersection = 0;
+        for (int i = 0; i < rightLength; i++) {
+            char c = right.charAt(i);
+            if (stamps[c] != inRight) {
+                if (stamps[c] == inLeft) {
+                    intersection++;
+                }
+                stamps[c] = inRight;
+                rightSize++;
+            }
+        }
+
+        final int union = leftSize + rightSize - intersection;
+        return 1d - (1.0d * intersection / union);
+    }
+
+    private static boolean isAsciiSafe(CharSequence s, Locale locale) {
+        String language = locale.getLanguage();
+        if ("tr".equals(language) || "az".equals(language) || "lt".equals(language)) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static final class Buffers {
+        private final int[][] ints = {new int[64], new int[64]};
+        private final char[][] chars = {new char[64], new char[64]};
+        private boolean[] flags = new boolean[64];
+        private final int[] stamps = new int[Character.MAX_VALUE + 1];
+        private int stamp;
+
+        char[] chars(int slot, CharSequence cs) {
+            final int length = cs.length();
+            if (chars[slot].length < length) {
+                chars[slot] = new char[Math.max(length, chars[slot].length * 2)];
+            }
+            if (cs instanceof String) {
+                ((String) cs).getChars(0, length, chars[slot], 0);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    chars[slot][i] = cs.charAt(i);
+                }
+            }
+            return chars[slot];
+        }
+
+        int[] ints(int slot, int size) {
+            if (ints[slot].length < size) {
+                ints[slot] = new int[Math.max(size, ints[slot].length * 2)];
+            }
+            return ints[slot];
+        }
+
+        /**
+         * All false, callers must clear what they set.
+         */
+        boolean[] flags(int size) {
+            if (flags.length < size) {
+                flags = new boolean[Math.max(size, flags.length * 2)];
+            }
+            return flags;
+        }
+
+        int nextStamp() {
+            if (stamp >= Integer.MAX_VALUE - 2) {
+                java.util.Arrays.fill(stamps, 0);
+                stamp = 0;
+            }
+            stamp += 2;
+            return stamp - 1;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package net.stargraph.rank.impl;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.StarGraphException;
+import net.stargraph.rank.WordEmbeddings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.io.*;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Word vectors served from a memory-mapped file.
+ * <p>
+ * The source is a word2vec/GloVe text file, one word followed by its components per line. On first use it is
+ * packed next to the source into a binary file of unit length float vectors, which is then mapped read-only.
+ * Later opens only map the packed file, so the vectors never live on the heap. Thread-safe.
+ */
+public final class WordVectors implements WordEmbeddings {
+    private static final int MAGIC = 0x53475756;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final String PACKED_SUFFIX = ".sgv";
+
+    private static Logger logger = LoggerFactory.getLogger(WordVectors.class);
+    private static Marker marker = MarkerFactory.getMarker("rank");
+    private static final Map<String, WordVectors> opened = new ConcurrentHashMap<>();
+
+    private final int dimensions;
+    private final Map<String, Integer> vocabulary;
+    private final FloatBuffer[] segments;
+    private final int rowsPerSegment;
+
+    private WordVectors(File packed) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(packed, "r"); FileChannel channel = raf.getChannel()) {
+            if (raf.readInt() != MAGIC) {
+                throw new StarGraphException("Not a packed vectors file: " + packed);
+            }
+            final int count = raf.readInt();
+            this.dimensions = raf.readInt();
+
+            final long rowBytes = (long) Math.max(dimensions, 1) * Float.BYTES;
+            this.rowsPerSegment = (int) (Integer.MAX_VALUE / rowBytes);
+            int segmentCount = count == 0 ? 0 : (count - 1) / rowsPerSegment + 1;
+            this.segments = new FloatBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                int rows = Math.min(rowsPerSegment, count - i * rowsPerSegment);
+                long offset = HEADER_BYTES + i * (long) rowsPerSegment * rowBytes;
+                // The mapping outlives the channel.
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, rows * rowBytes).asFloatBuffer();
+            }
+
+            this.vocabulary = new HashMap<>(count * 2);
+            channel.position(HEADER_BYTES + count * rowBytes);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            for (int i = 0; i < count; i++) {
+                vocabulary.put(in.readUTF(), i);
+            }
+        }
+    }
+
+    /**
+     * The instance shared by everyone using the given source file.
+     */
+    public static WordVectors open(File source) {
+        try {
+            return opened.computeIfAbsent(source.getCanonicalPath(), path -> load(new File(path)));
+        } catch (IOException e) {
+            throw new StarGraphException("Can't open " + source, e);
+        }
+    }
+
+    /**
+     * Maps the packed form of the source, packing it first when missing or older than the source.
+     */
+    public static WordVectors load(File source) {
+        File packed = new File(source.getPath() + PACKED_SUFFIX);
+        try {
+            if (!packed.exists() || packed.lastModified() < source.lastModified()) {
+                pack(source, packed);
+            }
+            WordVectors vectors = new WordVectors(packed);
+            logger.info(marker, "{} word vectors of {} dimensions mapped from '{}'", vectors.size(), vectors.dimensions, packed);
+            return vectors;
+        } catch (IOException e) {
+            throw new StarGraphException("Can't load word vectors from " + source, e);
+        }
+    }
+
+    @Override
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public int size() {
+        return vocabulary.size();
+    }
+
+    public boolean contains(String word) {
+        return vocabulary.containsKey(word);
+    }
+
+    /**
+     * Unit vector of the phrase, the normalized sum of its known words. Null when no word is known.
+     * Words are looked up as they are, then lower-cased.
+     */
+    @Override
+    public float[] phrase(String text) {
+        float[] sum = new float[dimensions];
+        boolean known = false;
+        for (String token : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                known |= addTo(token, sum) || addTo(token.toLowerCase(), sum);
+            }
+        }
+        return known && normalize(sum) ? sum : null;
+    }
+
+    /**
+     * Cosine similarity of two unit vectors.
+     */
+    public static double cosine(float[] a, float[] b) {
+        // Independent accumulators, the JIT turns this into SIMD.
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < a.length; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    private boolean addTo(String word, float[] sum) {
+        Integer row = vocabulary.get(word);
+        if (row == null) {
+            return false;
+        }
+        FloatBuffer segment = segments[row / rowsPerSegment];
+        int base = (row % rowsPerSegment) * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            sum[i] += segment.get(base + i);
+        }
+        return true;
+    }
+
+    private static boolean normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) {
+            norm += x * x;
+        }
+        if (norm == 0) {
+            return false;
+        }
+        float inv = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < v.length; i++) {
+            v[i] *= inv;
+        }
+        return true;
+    }
+
+    private static void pack(File source, File packed) throws IOException {
+        logger.info(marker, "Packing word vectors '{}' into '{}'", source, packed);
+        File tmp = new File(packed.getPath() + ".tmp");
+        List<String> words = new ArrayList<>();
+        int dimensions = -1;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(0); // count, patched once known
+            out.writeInt(0); // dimensions, idem
+
+            Map<String, Boolean> seen = new HashMap<>();
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] fields = line.trim().split(" ");
+                if (lineNumber == 1 && fields.length == 2) {
+                    continue; // word2vec header: <count> <dimensions>
+                }
+                if (dimensions < 0) {
+                    dimensions = fields.length - 1;
+                }
+                if (fields.length - 1 != dimensions || dimensions <= 0) {
+                    logger.warn(marker, "Skipping line {} of '{}': {} dimensions, expected {}",
+                            lineNumber, source, fields.length - 1, dimensions);
+                    continue;
+                }
+                if (seen.put(fields[0], Boolean.TRUE) != null) {
+                    continue;
+                }
+
+                float[] v = new float[dimensions];
+                for (int i = 0; i < dimensions; i++) {
+                    v[i] = Float.parseFloat(fields[i + 1]);
+                }
+                normalize(v);
+                for (float x : v) {
+                    out.writeFloat(x);
+                }
+                words.add(fields[0]);
+            }
+
+            for (String word : words) {
+                out.writeUTF(word);
+            }
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.seek(Integer.BYTES);
+            raf.writeInt(words.size());
+            raf.writeInt(Math.max(dimensions, 0));
+        }
+
+        if (packed.exists() && !packed.delete() || !tmp.renameTo(packed)) {
+            throw new IOException("Can't move " + tmp + " to " + packed);
+        }
+    }
+}
@@ -37,7 +37,24 @@ import javax.ws.rs.core.Response;
 @Produces(MediaType.APPLICATION_JSON)
 public interface QueryResource {
 
+    /**
+     * With stream=true the query must be a SPARQL SELECT, its rows are written as they come
+     * in the given format (json or tsv) and paged with offset/limit.
+     */
     @GET
     @Path("{kbId}/query")
-    Response query(@PathParam("kbId") String id, @QueryParam("q") String q);
+    @Produces({MediaType.APPLICATION_JSON, "text/tab-separated-values"})
+    Response query(@PathParam("kbId") String id, @QueryParam("q") String q,
+                   @DefaultValue("false") @QueryParam("stream") boolean stream,
+                   @DefaultValue("json") @QueryParam("format") String format,
+                   @DefaultValue("0") @QueryParam("offset") long offset,
+                   @DefaultValue("-1") @QueryParam("limit") long limit);
+
+    /**
+     * Entities whose label starts with q, most popular first.
+     */
+    @GET
+    @Path("{kbId}/suggest")
+    Response suggest(@PathParam("kbId") String id, @QueryParam("q") String q,
+                     @DefaultValue("10") @QueryParam("limit") int limit);
 }
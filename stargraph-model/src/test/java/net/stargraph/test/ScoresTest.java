@@ -0,0 +1,93 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.rank.Score;
+import net.stargraph.rank.Scores;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public final class ScoresTest {
+
+    @Test
+    public void sortTest() {
+        for (int size : new int[]{0, 1, 7, 32, 33, 1000}) {
+            List<Score> expected = randomScores(size);
+            Scores scores = new Scores(expected);
+
+            Collections.sort(expected);
+            scores.sort(false);
+            Assert.assertEquals(scores, expected);
+
+            Collections.reverse(expected);
+            scores = new Scores(randomScores(size));
+            scores.sort(true);
+            Assert.assertEquals(scores, expected);
+        }
+    }
+
+    @Test
+    public void topTest() {
+        List<Score> expected = randomScores(1000);
+        Scores scores = new Scores(expected);
+        Collections.sort(expected);
+        Collections.reverse(expected);
+
+        for (int k : new int[]{0, 1, 3, 6, 999, 1000, 2000}) {
+            Assert.assertEquals(scores.top(k), expected.subList(0, Math.min(k, expected.size())));
+        }
+    }
+
+    @Test
+    public void listViewTest() {
+        Scores scores = new Scores(Arrays.asList(new Score("a", 1), new Score("b", 2)));
+        scores.add("c", 3);
+        scores.add(0, new Score("z", 0));
+        Assert.assertEquals(scores.set(1, new Score("A", 10)), new Score("a", 1));
+        Assert.assertEquals(scores.remove(2), new Score("b", 2));
+
+        Assert.assertEquals(scores, Arrays.asList(new Score("z", 0), new Score("A", 10), new Score("c", 3)));
+        Assert.assertEquals(scores.getEntry(1), "A");
+        Assert.assertEquals(scores.getValue(2), 3.0);
+    }
+
+    private static List<Score> randomScores(int size) {
+        Random random = new Random(size);
+        List<Score> scores = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            scores.add(new Score("entry-" + i, random.nextInt(20))); // plenty of ties
+        }
+        return scores;
+    }
+}
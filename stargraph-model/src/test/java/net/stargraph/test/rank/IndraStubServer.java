@@ -0,0 +1,111 @@
+package net.stargraph.test.rank;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Indra relatedness service, for tests and benchmarks.
+ * Known pairs score as configured, everything else scores 0. Counts what it receives.
+ */
+public final class IndraStubServer implements Closeable {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Double> scores = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger pairs = new AtomicInteger();
+    private final HttpServer server;
+
+    public IndraStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/relatedness", exchange -> {
+            byte[] body;
+            try (InputStream is = exchange.getRequestBody()) {
+                body = respond(mapper.readTree(is));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public IndraStubServer score(String t1, String t2, double score) {
+        scores.put(t1 + '\t' + t2, score);
+        return this;
+    }
+
+    public String getUrl() {
+        return String.format("http://localhost:%d/relatedness", server.getAddress().getPort());
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getPairCount() {
+        return pairs.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private byte[] respond(JsonNode request) throws IOException {
+        requests.incrementAndGet();
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode scored = response.putArray("pairs");
+        for (JsonNode pair : request.get("pairs")) {
+            pairs.incrementAndGet();
+            String t1 = pair.get("t1").asText();
+            String t2 = pair.get("t2").asText();
+            scored.addObject()
+                    .put("t1", t1)
+                    .put("t2", t2)
+                    .put("score", scores.getOrDefault(t1 + '\t' + t2, 0.0));
+        }
+        return mapper.writeValueAsBytes(response);
+    }
+}
@@ -26,12 +26,33 @@ package net.stargraph.test.rank;
  * ==========================License-End===============================
  */
 
+import net.stargraph.rank.ModifiableIndraParams;
+import net.stargraph.rank.ModifiableRankParams;
+import net.stargraph.rank.ParamsBuilder;
+import net.stargraph.rank.Rankers;
+import net.stargraph.rank.RankingStats;
 import net.stargraph.rank.Scores;
+import net.stargraph.rank.Threshold;
+import net.stargraph.rank.ThresholdFilter;
+import net.stargraph.rank.impl.EmbeddingRanker;
+import net.stargraph.rank.impl.FuzzyRanker;
+import net.stargraph.rank.impl.IndraClient;
+import net.stargraph.rank.impl.IndraRanker;
+import net.stargraph.rank.impl.JarowinklerRanker;
 import net.stargraph.rank.impl.LevenshteinRanker;
+import net.stargraph.rank.impl.WordVectors;
+import org.apache.commons.lang3.StringUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static net.stargraph.test.rank.RankTestUtils.createRankable;
 import static net.stargraph.test.rank.RankTestUtils.createScore;
@@ -49,4 +70,148 @@ public final class RankerTest {
         Assert.assertEquals(rescored.get(0).getRankableView().getValue(), "lambda^3");
         Assert.assertEquals(rescored.get(0).getValue(), 1.0);
     }
+
+    @Test
+    public void stringDistanceScoresTest() {
+        Scores scores = randomScores(5000); // large enough to be scored in parallel
+
+        Scores levenshtein = new LevenshteinRanker().score(scores, createRankable("lambda^3"));
+        Scores jarowinkler = new JarowinklerRanker().score(scores, createRankable("lambda^3"));
+        Scores fuzzy = new FuzzyRanker().score(scores, createRankable("lambda^3"));
+
+        Assert.assertEquals(levenshtein.size(), scores.size());
+        for (int i = 0; i < scores.size(); i++) {
+            String value = levenshtein.get(i).getRankableView().getValue();
+            Assert.assertEquals(levenshtein.get(i).getValue(), 1.0 / (StringUtils.getLevenshteinDistance(value, "lambda^3") + 1));
+            value = jarowinkler.get(i).getRankableView().getValue();
+            Assert.assertEquals(jarowinkler.get(i).getValue(), 1.0 / (StringUtils.getJaroWinklerDistance(value, "lambda^3") + 1));
+            value = fuzzy.get(i).getRankableView().getValue();
+            Assert.assertEquals(fuzzy.get(i).getValue(), 1.0 / (StringUtils.getFuzzyDistance(value, "lambda^3", Locale.getDefault()) + 1));
+        }
+    }
+
+    @Test
+    public void levenshteinThresholdTest() {
+        Scores scores = randomScores(5000);
+
+        for (double v : new double[]{0.0, 0.1, 0.2, 0.25, 1.0 / 3, 0.5, 1.0}) {
+            Threshold threshold = Threshold.min(v);
+            Scores expected = ThresholdFilter.filter(new LevenshteinRanker().score(scores, createRankable("lambda^3")), threshold);
+            Scores pruned = new LevenshteinRanker(threshold).score(scores, createRankable("lambda^3"));
+
+            Assert.assertEquals(pruned.size(), expected.size());
+            for (int i = 0; i < pruned.size(); i++) {
+                Assert.assertEquals(pruned.get(i).getEntry(), expected.get(i).getEntry());
+                Assert.assertEquals(pruned.get(i).getValue(), expected.get(i).getValue());
+            }
+        }
+    }
+
+    @Test
+    public void fusedApplyTest() {
+        Scores scores = randomScores(3000);
+        Threshold[] thresholds = {Threshold.auto(), Threshold.min(0.2), Threshold.max(0.3), Threshold.min(1.0)};
+
+        for (Threshold threshold : thresholds) {
+            Scores ranked = ThresholdFilter.filter(new LevenshteinRanker().score(scores, createRankable("lambda^3")), threshold);
+
+            for (int limit : new int[]{-1, 0, 1, 6, 5000}) {
+                ModifiableRankParams params = ParamsBuilder.levenshtein().threshold(threshold).limit(limit);
+                Rankers.getStats().reset();
+
+                Scores fused = Rankers.apply(scores, params, "lambda^3");
+
+                Assert.assertEquals(fused, ranked.subList(0, limit < 0 ? ranked.size() : Math.min(limit, ranked.size())));
+                RankingStats stats = Rankers.getStats();
+                Assert.assertEquals(stats.getCalls(), 1);
+                Assert.assertEquals(stats.getCandidates() - stats.getPrunedByRanker()
+                        - stats.getPrunedByThreshold() - stats.getPrunedByLimit(), fused.size());
+            }
+        }
+    }
+
+    @Test
+    public void indraRankerTest() throws Exception {
+        try (IndraStubServer server = new IndraStubServer()) {
+            server.score("husband", "wife", 0.9).score("partner", "wife", 0.7).score("children", "wife", 0.4);
+            ModifiableIndraParams params = ParamsBuilder.word2vec().corpus("wiki-2014").language("EN").url(server.getUrl());
+
+            Scores scores = new Scores(Arrays.asList(createScore("husband", 100), createScore("husband", 100),
+                    createScore("children", 94), createScore("partner", 51), createScore("father", 1)));
+
+            try (IndraClient client = new IndraClient(server.getUrl(), 100, 2)) {
+                Scores rescored = new IndraRanker(params, client).score(scores, createRankable("wife"));
+
+                Assert.assertEquals(server.getPairCount(), 4); // duplicates sent once
+                Assert.assertEquals(rescored.size(), 5);
+                Assert.assertEquals(rescored.get(0).getRankableView().getValue(), "husband");
+                Assert.assertEquals(rescored.get(1).getRankableView().getValue(), "husband");
+                Assert.assertEquals(rescored.get(2).getRankableView().getValue(), "partner");
+                Assert.assertEquals(rescored.get(4).getValue(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void indraSubBatchesTest() throws Exception {
+        try (IndraStubServer server = new IndraStubServer()) {
+            server.score("candidate-42", "target", 1.0);
+            ModifiableIndraParams params = ParamsBuilder.word2vec().corpus("wiki-2014").language("EN").url(server.getUrl());
+
+            Scores scores = IntStream.range(0, 1000)
+                    .mapToObj(i -> createScore("candidate-" + i, i))
+                    .collect(Collectors.toCollection(Scores::new));
+
+            try (IndraClient client = new IndraClient(server.getUrl(), 100, 4)) {
+                Scores rescored = new IndraRanker(params, client).score(scores, createRankable("target"));
+
+                Assert.assertEquals(server.getRequestCount(), 10);
+                Assert.assertEquals(server.getPairCount(), 1000);
+                Assert.assertEquals(rescored.size(), 1000);
+                Assert.assertEquals(rescored.get(0).getRankableView().getValue(), "candidate-42");
+            }
+        }
+    }
+
+    @Test
+    public void embeddingRankerTest() throws Exception {
+        File file = File.createTempFile("vectors", ".txt");
+        file.deleteOnExit();
+        new File(file.getPath() + ".sgv").deleteOnExit();
+        Files.write(file.toPath(), Arrays.asList("5 3",
+                "wife 1.0 0.1 0.0",
+                "husband 0.9 0.2 0.0",
+                "spouse 0.8 0.3 0.1",
+                "children 0.1 1.0 0.2",
+                "father 0.0 0.3 1.0"), StandardCharsets.UTF_8);
+
+        WordVectors vectors = WordVectors.load(file);
+        Assert.assertEquals(vectors.size(), 5);
+        Assert.assertEquals(vectors.getDimensions(), 3);
+
+        Scores scores = new Scores(Arrays.asList(createScore("children", 100), createScore("Husband", 94),
+                createScore("spouse of", 51), createScore("unknown", 1)));
+
+        Scores rescored = new EmbeddingRanker(vectors).score(scores, createRankable("wife"));
+
+        Assert.assertEquals(rescored.get(0).getRankableView().getValue(), "Husband");
+        Assert.assertEquals(rescored.get(1).getRankableView().getValue(), "spouse of");
+        Assert.assertEquals(rescored.get(3).getRankableView().getValue(), "unknown");
+        Assert.assertEquals(rescored.get(3).getValue(), 0.0);
+
+        // Mapped from the packed file this time.
+        Assert.assertTrue(Arrays.equals(WordVectors.load(file).phrase("wife"), vectors.phrase("wife")));
+    }
+
+    private static Scores randomScores(int size) {
+        Random random = new Random(42);
+        String alphabet = "lambdLAMBD^3 ";
+        return IntStream.range(0, size).mapToObj(i -> {
+            char[] chars = new char[1 + random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            return createScore(new String(chars), size - i);
+        }).collect(Collectors.toCollection(Scores::new));
+    }
 }
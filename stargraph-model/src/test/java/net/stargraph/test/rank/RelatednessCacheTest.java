@@ -0,0 +1,121 @@
+package net.stargraph.test.rank;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.rank.ModifiableIndraParams;
+import net.stargraph.rank.ParamsBuilder;
+import net.stargraph.rank.RelatednessCache;
+import net.stargraph.rank.Scores;
+import net.stargraph.rank.impl.IndraClient;
+import net.stargraph.rank.impl.IndraRanker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static net.stargraph.test.rank.RankTestUtils.createRankable;
+import static net.stargraph.test.rank.RankTestUtils.createScore;
+
+public final class RelatednessCacheTest {
+
+    @Test
+    public void memoryEvictionTest() {
+        RelatednessCache cache = new RelatednessCache(2);
+        cache.put("a", 0.1);
+        cache.put("b", 0.2);
+        Assert.assertEquals(cache.get("a"), 0.1); // b is now the eldest
+        cache.put("c", 0.3);
+
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(cache.get("c"), 0.3);
+        Assert.assertEquals(cache.getMemoryHits(), 2);
+        Assert.assertEquals(cache.getMisses(), 1);
+    }
+
+    @Test
+    public void diskTierTest() throws Exception {
+        File dir = Files.createTempDirectory("relatedness").toFile();
+
+        try (RelatednessCache cache = new RelatednessCache(1, dir)) {
+            cache.put("spouse\u0001dbo:spouse", 0.8);
+            cache.put("wife\u0001husband", 0.6);
+            // evicted from memory, still on disk
+            Assert.assertEquals(cache.get("spouse\u0001dbo:spouse"), 0.8);
+            Assert.assertEquals(cache.getDiskHits(), 1);
+        }
+
+        try (RelatednessCache cache = new RelatednessCache(10, dir)) {
+            Assert.assertEquals(cache.get("spouse\u0001dbo:spouse"), 0.8);
+            Assert.assertEquals(cache.get("wife\u0001husband"), 0.6);
+            Assert.assertNull(cache.get("unknown"));
+            Assert.assertEquals(cache.getHitRate(), 2 / 3.0, 0.001);
+        }
+    }
+
+    @Test
+    public void diskCompactionTest() throws Exception {
+        File dir = Files.createTempDirectory("relatedness").toFile();
+        final long maxDiskBytes = 400; // Records of 16 bytes, compacted down to 12 of them.
+
+        try (RelatednessCache cache = new RelatednessCache(1, dir, maxDiskBytes)) {
+            for (int i = 0; i < 100; i++) {
+                cache.put(String.format("k%03d", i), i);
+            }
+            Assert.assertTrue(cache.getDiskBytes() <= maxDiskBytes);
+            Assert.assertEquals(cache.get("k098"), 98.0);
+            Assert.assertNull(cache.get("k000"));
+        }
+
+        try (RelatednessCache cache = new RelatednessCache(1, dir, maxDiskBytes)) {
+            Assert.assertEquals(cache.get("k097"), 97.0);
+            Assert.assertNull(cache.get("k050"));
+        }
+    }
+
+    @Test
+    public void rankerServedFromCacheTest() throws Exception {
+        try (IndraStubServer server = new IndraStubServer();
+             IndraClient client = new IndraClient(server.getUrl(), 100, 1)) {
+
+            server.score("husband", "wife", 0.9).score("partner", "wife", 0.7);
+            ModifiableIndraParams params = ParamsBuilder.word2vec().corpus("wiki-2014").language("EN")
+                    .url(server.getUrl()).cache(new RelatednessCache(100));
+            IndraRanker ranker = new IndraRanker(params, client);
+
+            Scores scores = new Scores(Arrays.asList(createScore("husband", 1), createScore("partner", 1)));
+            Scores first = ranker.score(scores, createRankable("wife"));
+            Scores second = ranker.score(scores, createRankable("wife"));
+
+            Assert.assertEquals(server.getRequestCount(), 1);
+            Assert.assertEquals(second, first);
+            Assert.assertEquals(params.getCache().getHitRate(), 0.5);
+        }
+    }
+}
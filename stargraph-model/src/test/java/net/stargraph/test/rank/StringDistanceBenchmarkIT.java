@@ -0,0 +1,118 @@
+package net.stargraph.test.rank;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import net.stargraph.rank.Rankable;
+import net.stargraph.rank.Ranker;
+import net.stargraph.rank.Score;
+import net.stargraph.rank.Scores;
+import net.stargraph.rank.Threshold;
+import net.stargraph.rank.impl.LevenshteinRanker;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static net.stargraph.test.rank.RankTestUtils.createRankable;
+import static net.stargraph.test.rank.RankTestUtils.createScore;
+
+/**
+ * Levenshtein ranking against the former commons-lang based one, unbounded and with a MIN threshold.
+ */
+public final class StringDistanceBenchmarkIT {
+    private static final int CANDIDATES = 50_000;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Scores candidates;
+    private Rankable target = createRankable("barack obama presidency");
+    private volatile double blackhole; // keeps the JIT from dropping the work
+
+    @BeforeClass
+    public void beforeClass() {
+        Random random = new Random(7);
+        candidates = IntStream.range(0, CANDIDATES).mapToObj(i -> {
+            char[] chars = new char[5 + random.nextInt(30)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            return createScore(new String(chars), i);
+        }).collect(Collectors.toCollection(Scores::new));
+    }
+
+    @Test
+    public void commonsLangTest() {
+        double avgMillis = measure((scores, target) -> {
+            Scores rescored = new Scores(scores.size());
+            scores.forEach(score -> rescored.add(new Score(score.getEntry(),
+                    1.0 / (StringUtils.getLevenshteinDistance(score.getRankableView().getValue(), target.getValue()) + 1))));
+            rescored.sort(true);
+            return rescored;
+        });
+        logger.info("commons-lang: avg={}ms per ranking", String.format("%.3f", avgMillis));
+    }
+
+    @Test
+    public void levenshteinRankerTest() {
+        double avgMillis = measure(new LevenshteinRanker());
+        logger.info("unbounded: avg={}ms per ranking", String.format("%.3f", avgMillis));
+    }
+
+    @Test
+    public void levenshteinRankerThresholdTest() {
+        double avgMillis = measure(new LevenshteinRanker(Threshold.min(0.1)));
+        logger.info("min(0.1): avg={}ms per ranking", String.format("%.3f", avgMillis));
+    }
+
+    private double measure(Ranker ranker) {
+        double sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += run(ranker);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += run(ranker);
+        }
+        double avgMillis = (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+
+        blackhole = sink;
+        return avgMillis;
+    }
+
+    private double run(Ranker ranker) {
+        Scores rescored = ranker.score(candidates, target);
+        return rescored.isEmpty() ? 0 : rescored.get(0).getValue();
+    }
+}
@@ -26,14 +26,19 @@ package net.stargraph.server;
  * ==========================License-End===============================
  */
 
+import net.stargraph.StarGraphException;
+import net.stargraph.core.KBCore;
 import net.stargraph.core.Stargraph;
+import net.stargraph.core.graph.GraphSearcher;
 import net.stargraph.core.query.QueryEngine;
 import net.stargraph.core.query.QueryResponse;
 import net.stargraph.core.query.response.AnswerSetResponse;
 import net.stargraph.core.query.response.NoResponse;
 import net.stargraph.core.query.response.SPARQLSelectResponse;
+import net.stargraph.core.search.EntitySearcher;
 import net.stargraph.model.LabeledEntity;
 import net.stargraph.rest.*;
+import org.apache.jena.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -49,14 +54,20 @@ public final class QueryResourceImpl implements QueryResource {
     private Marker marker = MarkerFactory.getMarker("server");
     private Stargraph core;
     private Map<String, QueryEngine> engines;
+    private Map<String, GraphSearcher> graphSearchers;
 
     public QueryResourceImpl(Stargraph core) {
         this.core = Objects.requireNonNull(core);
         this.engines = new ConcurrentHashMap<>();
+        this.graphSearchers = new ConcurrentHashMap<>();
     }
 
     @Override
-    public Response query(String id, String q) {
+    public Response query(String id, String q, boolean stream, String format, long offset, long limit) {
+        if (stream) {
+            return streamQuery(id, q, format, offset, limit);
+        }
+
         try {
             if (core.hasKB(id)) {
                 QueryEngine engine = engines.computeIfAbsent(id, (k) -> new QueryEngine(k, core));
@@ -71,6 +82,64 @@ public final class QueryResourceImpl implements QueryResource {
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
     }
 
+    @Override
+    public Response suggest(String id, String q, int limit) {
+        if (!core.hasKB(id)) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        if (q == null || q.isEmpty() || limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        EntitySearcher entitySearcher = core.getEntitySearcher();
+        if (!entitySearcher.supportsSuggest(id)) {
+            logger.warn(marker, "No suggestions for '{}'", id);
+            return Response.status(Response.Status.NOT_IMPLEMENTED).build();
+        }
+
+        List<UserResponse.EntityEntry> suggestions = entitySearcher.suggest(id, q, limit).stream()
+                .map(s -> new UserResponse.EntityEntry(s.getRankableView().getId(),
+                        s.getRankableView().getValue(), s.getValue()))
+                .collect(Collectors.toList());
+        return Response.status(Response.Status.OK).entity(suggestions).build();
+    }
+
+    private Response streamQuery(String id, String q, String format, long offset, long limit) {
+        if (!core.hasKB(id)) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        if (q == null || q.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        SelectStreamingOutput.Format outputFormat;
+        try {
+            outputFormat = SelectStreamingOutput.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn(marker, "Unknown streaming format '{}'", format);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        KBCore kbCore = core.getKBCore(id);
+        GraphSearcher graphSearcher = graphSearchers.computeIfAbsent(id, (k) -> kbCore.createGraphSearcher());
+
+        // Rejected before the status is sent, afterwards the client would only get a truncated body.
+        Query query;
+        try {
+            query = graphSearcher.parseSelect(q);
+        } catch (StarGraphException e) {
+            logger.warn(marker, "Can't stream '{}': {}", q, e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        SelectStreamingOutput output =
+                new SelectStreamingOutput(graphSearcher, kbCore.getNamespace(), query, offset, limit, outputFormat);
+
+        return Response.ok(output, outputFormat.mediaType).build();
+    }
+
     public UserResponse buildUserResponse(QueryResponse queryResponse) {
 
         if (queryResponse instanceof NoResponse) {
@@ -0,0 +1,211 @@
+package net.stargraph.server;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-server
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.stargraph.core.Namespace;
+import net.stargraph.core.graph.GraphSearcher;
+import net.stargraph.core.graph.SelectHandler;
+import net.stargraph.model.LabeledEntity;
+import net.stargraph.model.ValueEntity;
+import org.apache.jena.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes a SPARQL SELECT to the client while the graph is still producing rows.
+ * Every batch of rows is flushed, so the response goes out chunked.
+ */
+final class SelectStreamingOutput implements StreamingOutput {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("server");
+
+    private GraphSearcher graphSearcher;
+    private Namespace namespace;
+    private Query query;
+    private String queryText;
+    private long offset;
+    private long limit;
+    private Format format;
+
+    enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        TSV("text/tab-separated-values");
+
+        String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+    }
+
+    /**
+     * @param query Parsed upfront, once the response is committed a failure can only truncate it.
+     */
+    SelectStreamingOutput(GraphSearcher graphSearcher, Namespace namespace, Query query, long offset, long limit, Format format) {
+        this.graphSearcher = Objects.requireNonNull(graphSearcher);
+        this.namespace = Objects.requireNonNull(namespace);
+        this.query = Objects.requireNonNull(query);
+        this.queryText = query.toString(); // As asked, the query gets narrowed to the page.
+        this.offset = offset;
+        this.limit = limit;
+        this.format = Objects.requireNonNull(format);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        SelectHandler handler = format == Format.JSON ? new JsonHandler(output) : new TsvHandler(output);
+        try {
+            graphSearcher.select(query, offset, limit, handler);
+        } catch (IOException e) {
+            logger.info(marker, "Client is gone, SPARQL streaming cancelled: '{}'", queryText);
+            throw e;
+        }
+    }
+
+    /**
+     * {"query": "..", "vars": [..], "rows": [{"var": {"id": "..", "value": ".."}, ..], "count": n}
+     */
+    private final class JsonHandler implements SelectHandler {
+        private JsonGenerator generator;
+
+        JsonHandler(OutputStream output) throws IOException {
+            this.generator = jsonFactory.createGenerator(output, JsonEncoding.UTF8);
+        }
+
+        @Override
+        public void start(List<String> vars) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("query", queryText);
+            generator.writeArrayFieldStart("vars");
+            for (String var : vars) {
+                generator.writeString(var);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("rows");
+        }
+
+        @Override
+        public void rows(List<Map<String, LabeledEntity>> rows) throws IOException {
+            for (Map<String, LabeledEntity> row : rows) {
+                generator.writeStartObject();
+                for (Map.Entry<String, LabeledEntity> cell : row.entrySet()) {
+                    generator.writeObjectFieldStart(cell.getKey());
+                    generator.writeStringField("id", cell.getValue().getId());
+                    generator.writeStringField("value", cell.getValue().getValue());
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+            generator.flush();
+        }
+
+        @Override
+        public void end(long rowCount) throws IOException {
+            generator.writeEndArray();
+            generator.writeNumberField("count", rowCount);
+            generator.writeEndObject();
+            generator.flush();
+        }
+    }
+
+    /**
+     * SPARQL 1.1 Query Results TSV Format.
+     */
+    private final class TsvHandler implements SelectHandler {
+        private Writer writer;
+        private List<String> vars;
+
+        TsvHandler(OutputStream output) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void start(List<String> vars) throws IOException {
+            this.vars = vars;
+            for (int i = 0; i < vars.size(); i++) {
+                writer.write(i == 0 ? "?" : "\t?");
+                writer.write(vars.get(i));
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void rows(List<Map<String, LabeledEntity>> rows) throws IOException {
+            for (Map<String, LabeledEntity> row : rows) {
+                for (int i = 0; i < vars.size(); i++) {
+                    if (i > 0) {
+                        writer.write('\t');
+                    }
+                    LabeledEntity entity = row.get(vars.get(i));
+                    if (entity != null) {
+                        writer.write(toTerm(entity));
+                    }
+                }
+                writer.write('\n');
+            }
+            writer.flush();
+        }
+
+        @Override
+        public void end(long rowCount) throws IOException {
+            writer.flush();
+        }
+
+        private String toTerm(LabeledEntity entity) {
+            if (entity instanceof ValueEntity) {
+                ValueEntity value = (ValueEntity) entity;
+                String literal = '"' + escape(value.getValue()) + '"';
+                if (value.getLanguage() != null && !value.getLanguage().isEmpty()) {
+                    return literal + '@' + value.getLanguage();
+                }
+                return value.getDataType() != null ? literal + "^^<" + value.getDataType() + '>' : literal;
+            }
+            return '<' + namespace.expandURI(entity.getId()) + '>';
+        }
+
+        private String escape(String s) {
+            return s.replace("\\", "\\\\").replace("\"", "\\\"")
+                    .replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+        }
+    }
+}